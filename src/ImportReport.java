@@ -0,0 +1,242 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Steven Pride
+ * CEN 3024 - Software Development I
+ * 09/13/25
+ * LibraryApp
+ * Result of a patron file import: how many patrons were imported and every rejected line (Business Logic Layer).
+ * Each rejection is recorded as a line number, a reason code, and the column that failed, in the order the lines appear in the file.
+ * Rejections are plain records, not exceptions, so a file full of bad lines imports as fast as a clean one.
+ * A report is either kept in memory, or streamed to a Writer as comma separated values (line,reason,column) so very large files
+ * do not hold every rejection in memory. Counts by reason are kept either way.
+ */
+public class ImportReport {
+    /**
+     * Why a line was rejected, with the message shown to the user and the column the reason is about.
+     */
+    public enum RejectionReason {
+        WRONG_COLUMN_COUNT("Invalid data format. Expected 4 columns.", WHOLE_LINE),
+        EMPTY_ID("Patron ID cannot be empty.", 1),
+        ID_NOT_7_DIGITS("Patron ID must be 7 digits.", 1),
+        ID_NOT_NUMERIC("Patron ID must be only numbers.", 1),
+        DUPLICATE_ID("Patron with this id already exists.", 1),
+        EMPTY_FINE("Fine cannot be empty.", 4),
+        FINE_NOT_DECIMAL("Patron Overdue fine must be in the format of 0.00, you can only use numbers and one decimal point.", 4),
+        FINE_OUT_OF_RANGE("Overdue fine must be between 0.00 and 250.00.", 4),
+        LINE_TOO_LONG("Line is too long to send to a shard. Only a sharded import rejects it.", WHOLE_LINE),
+        READ_ERROR("Error reading file. The import stopped at this line.", WHOLE_LINE);
+
+        private final String message;
+        private final int column;
+
+        RejectionReason(String message, int column) {
+            this.message = message;
+            this.column = column;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+        public int getColumn() {
+            return column;
+        }
+    }
+
+    /**
+     * Class attributes:
+     *     WHOLE_LINE: int - the column recorded when the rejection is not about a single column
+     *     rejectionWriter: Writer - where rejections are streamed, null when they are kept in memory
+     *     importedCount: int - the number of patrons imported
+     *     rejectedCount: int - the number of lines rejected
+     *     reasonCounts: int[] - the number of lines rejected for each reason, indexed by RejectionReason ordinal
+     *     lineNumbers: int[] - the 1-based line number of each rejection kept in memory
+     *     reasons: RejectionReason[] - the reason for each rejection kept in memory
+     *     columns: int[] - the 1-based column (1 = ID, 4 = Fine) of each rejection kept in memory, or WHOLE_LINE
+     */
+    public static final int WHOLE_LINE = 0;
+    private final Writer rejectionWriter;
+    private int importedCount = 0;
+    private int rejectedCount = 0;
+    private final int[] reasonCounts = new int[RejectionReason.values().length];
+    private int[] lineNumbers = new int[16];
+    private RejectionReason[] reasons = new RejectionReason[16];
+    private int[] columns = new int[16];
+
+    /**
+     * method: ImportReport constructor
+     * parameters: none
+     * return: A new ImportReport object.
+     * purpose: Initializes an empty report that keeps every rejection in memory.
+     */
+    public ImportReport() {
+        this.rejectionWriter = null;
+    }
+
+    /**
+     * method: ImportReport constructor
+     * parameters: Writer rejectionWriter - where to stream rejections, for example a FileWriter for a report file
+     * return: A new ImportReport object.
+     * throws: IOException - if the header line cannot be written.
+     * purpose: Initializes an empty report that writes a header line, then one line per rejection as it happens, instead of keeping them in memory.
+     * The caller owns the writer and closes it after the import.
+     */
+    public ImportReport(Writer rejectionWriter) throws IOException {
+        this.rejectionWriter = rejectionWriter;
+        rejectionWriter.write("line,reason,column\n");
+    }
+
+    /**
+     * method: recordImported
+     * parameters: none
+     * return: void
+     * purpose: Counts one successfully imported patron.
+     */
+    public void recordImported() {
+        importedCount++;
+    }
+
+    /**
+     * method: recordImported
+     * parameters: int count - the number of patrons imported
+     * return: void
+     * purpose: Counts several successfully imported patrons at once, for example when combining the reports of several shards.
+     */
+    public void recordImported(int count) {
+        importedCount += count;
+    }
+
+    /**
+     * method: recordRejected
+     * parameters: int lineNumber - the 1-based line number in the import file
+     *             RejectionReason reason - why the line was rejected
+     * return: void
+     * throws: IOException - if the report is streamed and the rejection cannot be written.
+     * purpose: Records one rejected line against the column the reason is about, after any rejections already recorded.
+     */
+    public void recordRejected(int lineNumber, RejectionReason reason) throws IOException {
+        recordRejected(lineNumber, reason, reason.getColumn());
+    }
+
+    /**
+     * method: recordRejected
+     * parameters: int lineNumber - the 1-based line number in the import file
+     *             RejectionReason reason - why the line was rejected
+     *             int column - the 1-based column that failed, or WHOLE_LINE
+     * return: void
+     * throws: IOException - if the report is streamed and the rejection cannot be written.
+     * purpose: Records one rejected line, after any rejections already recorded.
+     */
+    public void recordRejected(int lineNumber, RejectionReason reason, int column) throws IOException {
+        rejectedCount++;
+        reasonCounts[reason.ordinal()]++;
+
+        if(rejectionWriter != null) {
+            rejectionWriter.write(lineNumber + "," + reason + "," + column + "\n");
+            return;
+        }
+
+        int index = rejectedCount - 1;
+        if(index == lineNumbers.length) {
+            lineNumbers = Arrays.copyOf(lineNumbers, index * 2);
+            reasons = Arrays.copyOf(reasons, index * 2);
+            columns = Arrays.copyOf(columns, index * 2);
+        }
+        lineNumbers[index] = lineNumber;
+        reasons[index] = reason;
+        columns[index] = column;
+    }
+
+    /**
+     * method: flush
+     * parameters: none
+     * return: void
+     * throws: IOException - if the streamed rejections cannot be written.
+     * purpose: Flushes the rejection writer, if the report is streamed.
+     */
+    public void flush() throws IOException {
+        if(rejectionWriter != null)
+            rejectionWriter.flush();
+    }
+
+    //Getters
+    public int getImportedCount() {
+        return importedCount;
+    }
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+    public int getRejectedCount(RejectionReason reason) {
+        return reasonCounts[reason.ordinal()];
+    }
+    public boolean isStreamed() {
+        return rejectionWriter != null;
+    }
+
+    /**
+     * method: getLineNumber, getReason, getColumn
+     * parameters: int index - the position of the rejection, 0 for the first rejected line in the file
+     * return: the line number, reason, or column of that rejection.
+     * throws: IllegalStateException - if the report is streamed, so rejections are not kept in memory
+     *         IndexOutOfBoundsException - if the index is not below getRejectedCount
+     * purpose: Reads back rejections kept in memory, in file order.
+     */
+    public int getLineNumber(int index) {
+        checkIndex(index);
+        return lineNumbers[index];
+    }
+    public RejectionReason getReason(int index) {
+        checkIndex(index);
+        return reasons[index];
+    }
+    public int getColumn(int index) {
+        checkIndex(index);
+        return columns[index];
+    }
+
+    /**
+     * method: toString
+     * parameters: none
+     * return: String - the import summary shown to the user.
+     * purpose: Returns the imported count, then each rejected line in file order if they are kept in memory, then the rejected count for each reason.
+     */
+    @Override
+    public String toString() {
+        StringBuilder statusMessage = new StringBuilder();
+        statusMessage.append("Successfully imported ").append(importedCount).append(" patrons.");
+        if(rejectedCount == 0)
+            return statusMessage.toString();
+
+        if(rejectionWriter == null) {
+            statusMessage.append("\nThe following lines failed");
+            for (int i = 0; i < rejectedCount; i++) {
+                statusMessage.append("\nLine ").append(lineNumbers[i]);
+                if(columns[i] != WHOLE_LINE)
+                    statusMessage.append(", column ").append(columns[i]);
+                statusMessage.append(": ").append(reasons[i].getMessage()).append("\n-----------------------------");
+            }
+        }
+
+        statusMessage.append("\n").append(rejectedCount).append(" lines failed:");
+        for (RejectionReason reason : RejectionReason.values()) {
+            if(reasonCounts[reason.ordinal()] > 0)
+                statusMessage.append("\n    ").append(reason).append(": ").append(reasonCounts[reason.ordinal()]);
+        }
+        return statusMessage.toString();
+    }
+
+    /**
+     * method: checkIndex
+     * parameters: int index - the position of a rejection
+     * return: void
+     * purpose: Rejects reads from a streamed report or past the last rejection.
+     */
+    private void checkIndex(int index) {
+        if(rejectionWriter != null)
+            throw new IllegalStateException("Rejections were streamed to the report writer and are not kept in memory.");
+        if(index < 0 || index >= rejectedCount)
+            throw new IndexOutOfBoundsException("No rejection at index " + index + ".");
+    }
+}
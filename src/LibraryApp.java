@@ -1,3 +1,7 @@
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 /**
@@ -15,27 +19,84 @@ import java.util.Scanner;
  * 4. Update Existing Patron
  * 5. Remove Existing Patron
  * 6. List All Patrons
- * 7. Exit
+ * 7. Search Patrons by Name
+ * 8. Exit
  * Subclasses will be called, with results displayed to the user by this class.
+ * Launching with --snapshot <path> restores the patron collection from that snapshot at startup and writes it back at shutdown,
+ * whether the user chooses Exit, closes the input, or the process is stopped (for example SIGTERM or closing the terminal).
  */
 public class LibraryApp {
     /**
      * Class attributes:
      *     inputScanner: Scanner - an instance of the Scanner class to capture user inputs
+     *     SEARCH_RESULT_LIMIT: int - the maximum number of patrons shown for a name search
      */
     private static Scanner inputScanner = new Scanner(System.in);
+    private static final int SEARCH_RESULT_LIMIT = 10;
+
+    /**
+     * Class attributes:
+     *     snapshotPath: String - the snapshot file given with --snapshot, or null when there is nothing to save: the application started
+     *         without one, the snapshot could not be read, or it was already saved at shutdown. Set by main before the shutdown hook is
+     *         registered, afterwards only used by saveSnapshot.
+     */
+    private static String snapshotPath = null;
 
     /**
      * method: main
-     * parameters: String[] args - command line arguments (not used)
+     * parameters: String[] args - command line arguments, optionally --snapshot <path>
      * return: void
-     * purpose: Launches the Library Management System application. Welcomes users and runs the main menu loop method.
+     * purpose: Launches the Library Management System application. Welcomes users, restores the snapshot if one was given, and runs the main menu loop method.
+     * With a snapshot, a shutdown hook saves it when the JVM stops for any reason other than the Exit option, which saves it itself.
      */
     public static void main(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--snapshot") && i + 1 < args.length)
+                snapshotPath = args[++i];
+        }
+
         System.out.println("Welcome to the Library Management System!");
+        if (snapshotPath != null) {
+            loadSnapshot();
+            Runtime.getRuntime().addShutdownHook(new Thread(LibraryApp::saveSnapshot, "snapshot-save"));
+        }
         menu();
     }
 
+    /**
+     * method: loadSnapshot
+     * parameters: none
+     * return: void
+     * purpose: Calls the LibraryManagementSystem.loadSnapshot method to restore the collection from the snapshot file.
+     * Writes out how many patrons were restored and how long the application took to become ready, measured from JVM start.
+     * A missing snapshot is not an error, the application starts empty and the snapshot is created on exit.
+     * A snapshot that cannot be read (truncated, or from another snapshot version) is moved aside to <path>.unreadable and saving on exit
+     * is turned off, so the empty collection never replaces the patrons in that file.
+     */
+    private static void loadSnapshot() {
+        File snapshotFile = new File(snapshotPath);
+        if (!snapshotFile.exists()) {
+            System.out.println("No snapshot found at " + snapshotPath + ", starting with an empty collection.");
+            return;
+        }
+
+        try {
+            int restoredCount = LibraryManagementSystem.loadSnapshot(snapshotPath);
+            long readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+            System.out.println("Restored " + restoredCount + " patrons from " + snapshotPath + ". Ready in " + readyMillis + " ms.");
+        }
+        catch(Exception e) {
+            System.out.println(e.getMessage());
+
+            //Keep the unreadable file and make sure exit does not write over it.
+            File unreadableFile = new File(snapshotPath + ".unreadable");
+            if (snapshotFile.renameTo(unreadableFile))
+                System.out.println("The snapshot was moved to " + unreadableFile.getPath() + ".");
+            System.out.println("Starting with an empty collection. Changes in this session will not be saved to a snapshot.");
+            snapshotPath = null;
+        }
+    }
+
     /**
      * method: menu
      * parameters: none
@@ -51,13 +112,17 @@ public class LibraryApp {
             System.out.println("4. Update Existing Patron");
             System.out.println("5. Remove Existing Patron");
             System.out.println("6. List All Patrons");
-            System.out.println("7. Exit");
+            System.out.println("7. Search Patrons by Name");
+            System.out.println("8. Exit");
 
             int menuOption = 0;
             try {
                 menuOption = Integer.parseInt(inputScanner.nextLine());
+            } catch (NoSuchElementException e) {
+                //The input was closed, for example with Ctrl+D, so no further option can be read. The shutdown hook saves the snapshot.
+                return;
             } catch (Exception e) {
-                System.out.println("Invalid option selected. Please enter 1-7");
+                System.out.println("Invalid option selected. Please enter 1-8");
                 continue;
             }
             switch(menuOption) {
@@ -80,10 +145,13 @@ public class LibraryApp {
                     listPatrons();
                     break;
                 case 7:
+                    searchPatronsByName();
+                    break;
+                case 8:
                     exit();
                     break;
                 default:
-                    System.out.println("Invalid option selected. Please enter 1-7");
+                    System.out.println("Invalid option selected. Please enter 1-8");
                     break;
             }
          }
@@ -261,16 +329,85 @@ public class LibraryApp {
         }
     }
 
+    /**
+     * method: searchPatronsByName
+     * parameters: none
+     * return: void
+     * purpose: Prompts the user for a patron name, which may be partial or misspelled, and calls the LibraryManagementSystem.searchPatronsByName method.
+     * Writes out the closest matching patrons to the user, best match first, or a message indicating no patron was found.
+     */
+    public static void searchPatronsByName() {
+        try {
+            if(LibraryManagementSystem.isPatronCollectionEmpty()) {
+                System.out.println("No Patrons in the collection. Please add Patrons before performing this action.");
+                return;
+            }
+
+            String name = "";
+            while (name.trim().isEmpty()) {
+                System.out.println("To return to the main menu, enter 'menu'.");
+                System.out.println("Please enter the name of the Patron you would like to search for: ");
+                name = inputScanner.nextLine();
+
+                //Return to the main menu if the user wants to exit the current function
+                if (name.trim().equalsIgnoreCase("menu"))
+                    return;
+            }
+
+            List<Patron> matches = LibraryManagementSystem.searchPatronsByName(name, SEARCH_RESULT_LIMIT);
+            if(matches.isEmpty()) {
+                System.out.println("No Patrons found with a name like " + name.trim());
+                return;
+            }
+            for (Patron patron : matches) {
+                System.out.println(patron.toString());
+            }
+        }
+        catch(Exception e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
     /**
      * method: exit
      * parameters: none
      * return: void
-     * purpose: Exits the application
+     * purpose: Exits the application, writing the collection to the snapshot file first if the application was launched with --snapshot.
+     * If the snapshot cannot be saved, the application stays open instead, so the changes made in this session are not lost.
      */
     public static void exit() {
+        if (!saveSnapshot()) {
+            System.out.println("The snapshot was not saved, so the application will stay open to keep this session's changes. Fix the problem and choose Exit again.");
+            return;
+        }
         System.exit(0);
     }
 
+    /**
+     * method: saveSnapshot
+     * parameters: none
+     * return: boolean - true if the snapshot was saved or there was nothing to save, false if saving failed.
+     * purpose: Calls the LibraryManagementSystem.saveSnapshot method at shutdown, from the Exit option or the shutdown hook.
+     * After a successful save there is nothing left to save, so the shutdown hook that runs after the Exit option does not write it twice.
+     * Synchronized so the hook and the Exit option never write the snapshot at the same time. If the process is stopped in the middle of a
+     * menu action the save can fail, but saveSnapshot writes a temp file first, so the previous snapshot is then left as it was.
+     */
+    private static synchronized boolean saveSnapshot() {
+        if (snapshotPath == null)
+            return true;
+
+        try {
+            int savedCount = LibraryManagementSystem.saveSnapshot(snapshotPath);
+            System.out.println("Saved " + savedCount + " patrons to " + snapshotPath + ".");
+            snapshotPath = null;
+            return true;
+        }
+        catch(Exception e) {
+            System.out.println(e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * method: getPatronID
      * parameters: String action - the action being performed, for example, retrieve, update, etc.
@@ -0,0 +1,487 @@
+import java.io.*;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Steven Pride
+ * CEN 3024 - Software Development I
+ * 09/13/25
+ * LibraryApp
+ * Command line benchmarks for the Library Management System (Benchmark tooling, not part of the menu application).
+ * Run with: java -cp LibraryManagementSystem.jar LibraryBenchmark <benchmark> [patronCount] [maxShards]
+ * Benchmarks:
+ * changefeed - measures create, update, and delete throughput with zero, one, and four change feed subscribers.
+ * feedcheck - stress checks the change feed while subscriptions open and close, exits with status 1 if any event is null, missing, or out of order.
+ * import - compares importing a clean file with importing a file where half of the lines are rejected.
+ * shards - measures import, routed retrieve, and fan out aggregate times with 1 to maxShards worker processes (4 by default).
+ * search - measures building the name index on the first search and the average latency of fuzzy name searches.
+ * startup - compares a cold start plus text import, a snapshot restore, and a snapshot restore with a CDS archive, each in a fresh JVM,
+ *           measured from launching the JVM to the first query.
+ * Generated patron files are written to the system temp directory and deleted afterwards.
+ */
+public class LibraryBenchmark {
+    /**
+     * Class attributes:
+     *     DEFAULT_PATRON_COUNT: int - the number of patrons generated when no count is given on the command line
+     *     FIRST_NAMES: String[] - first names used for generated patrons
+     *     NAME_SYLLABLES: String[] - syllables combined into generated last names, giving thousands of distinct last names
+     */
+    private static final int DEFAULT_PATRON_COUNT = 1_000_000;
+    private static final String[] FIRST_NAMES = {"Sarah", "Mason", "Avery", "Jessie", "Devon", "Jordan", "Taylor", "Morgan", "Riley", "Casey",
+            "Jamie", "Alex", "Quinn", "Parker", "Rowan", "Elliot", "Harper", "Logan", "Reese", "Skyler"};
+    private static final String[] NAME_SYLLABLES = {"jo", "nes", "ar", "by", "ir", "win", "tor", "res", "mil", "ler", "son", "ford",
+            "ham", "ton", "bar", "ker", "well", "ing", "den", "ley"};
+
+    /**
+     * method: main
+     * parameters: String[] args - the benchmark to run, optionally followed by the patron count
+     * return: void
+     * purpose: Runs the requested benchmark and writes the results to the console.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 5 && args[0].equals("startup-child")) {
+            startupChild(args[1], args[2], args[3], args[4]);
+            return;
+        }
+        if (args.length == 0) {
+            System.out.println("Usage: LibraryBenchmark <changefeed|feedcheck|import|search|shards|startup> [patronCount] [maxShards]");
+            return;
+        }
+        int patronCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PATRON_COUNT;
+        int maxShards = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        switch(args[0]) {
+            case "changefeed":
+                changeFeed(patronCount);
+                break;
+            case "feedcheck":
+                if(!feedCheck(patronCount))
+                    System.exit(1);
+                break;
+            case "import":
+                importFiles(patronCount);
+                break;
+            case "search":
+                search(patronCount);
+                break;
+            case "shards":
+                shards(patronCount, maxShards);
+                break;
+            case "startup":
+                startup(patronCount);
+                break;
+            default:
+                System.out.println("Unknown benchmark " + args[0] + ".");
+                break;
+        }
+    }
+
+    /**
+     * method: changeFeed
+     * parameters: int patronCount - the number of patrons to create, update, and delete in each run
+     * return: void
+     * purpose: Times creating, updating the fine of, and deleting every patron with zero, one, and four subscribers consuming the change feed.
+     * Each run waits until every subscriber has consumed every event, so subscriber lag and backpressure are included.
+     */
+    private static void changeFeed(int patronCount) throws Exception {
+        System.out.println("Patrons: " + patronCount + " (" + (patronCount * 3) + " mutations per run)");
+
+        //The first run warms up the JIT and is not reported.
+        changeFeedRun(patronCount, 0);
+        for (int subscriberCount : new int[] {0, 1, 4}) {
+            long elapsedNanos = changeFeedRun(patronCount, subscriberCount);
+            long mutationsPerSecond = patronCount * 3L * 1_000_000_000L / elapsedNanos;
+            System.out.println(subscriberCount + " subscribers: " + elapsedNanos / 1_000_000 + " ms, " + mutationsPerSecond + " mutations/s");
+        }
+    }
+
+    /**
+     * method: feedCheck
+     * parameters: int eventCount - the number of events the writer publishes
+     * return: boolean - true if every subscription received an unbroken run of events.
+     * purpose: Publishes numbered events into a small 8 slot feed, so the writer laps the buffer constantly, while a subscriber thread
+     * repeatedly subscribes, reads a few batches, and closes. Each subscription must see events with consecutive numbers and never a null slot.
+     */
+    private static boolean feedCheck(int eventCount) throws Exception {
+        PatronChangeFeed feed = new PatronChangeFeed(8);
+        Patron patron = new Patron("1000000", "Feed Check", "1 Main St.", "0.00");
+        PatronChangeEvent.PatronValues values = new PatronChangeEvent.PatronValues(patron);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        Thread writerThread = new Thread(() -> {
+            for (int i = 0; i < eventCount; i++) {
+                if(feed.readyToPublish())
+                    feed.publish(new PatronChangeEvent(PatronChangeEvent.ChangeType.UPDATE, String.valueOf(i), values, values));
+            }
+            writing.set(false);
+        });
+        writerThread.start();
+
+        long subscriptionCount = 0;
+        long nullEvents = 0;
+        long brokenRuns = 0;
+        List<PatronChangeEvent> batch = new ArrayList<>();
+        while(writing.get()) {
+            try (PatronChangeFeed.Subscription subscription = feed.subscribe()) {
+                subscriptionCount++;
+                long lastNumber = -1;
+                for (int read = 0; read < 50; read++) {
+                    batch.clear();
+                    subscription.take(batch, 4, 1, TimeUnit.MILLISECONDS);
+                    for (PatronChangeEvent event : batch) {
+                        if(event == null) {
+                            nullEvents++;
+                            lastNumber = -1;
+                            continue;
+                        }
+                        long number = Long.parseLong(event.getId());
+                        if(lastNumber >= 0 && number != lastNumber + 1)
+                            brokenRuns++;
+                        lastNumber = number;
+                    }
+                }
+            }
+        }
+        writerThread.join();
+
+        System.out.println("Events: " + eventCount + ", subscriptions: " + subscriptionCount + ", null events: " + nullEvents + ", gaps: " + brokenRuns);
+        return nullEvents == 0 && brokenRuns == 0;
+    }
+
+    /**
+     * method: changeFeedRun
+     * parameters: int patronCount - the number of patrons to create, update, and delete
+     *             int subscriberCount - the number of subscriber threads consuming the feed
+     * return: long - the elapsed time in nanoseconds.
+     * purpose: Runs one change feed benchmark pass, leaving the patron collection empty afterwards.
+     */
+    private static long changeFeedRun(int patronCount, int subscriberCount) throws Exception {
+        long expectedEvents = patronCount * 3L;
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Thread> subscriberThreads = new ArrayList<>();
+        List<AtomicLong> consumedCounts = new ArrayList<>();
+
+        for (int i = 0; i < subscriberCount; i++) {
+            PatronChangeFeed.Subscription subscription = LibraryManagementSystem.subscribeToChanges();
+            AtomicLong consumedCount = new AtomicLong();
+            consumedCounts.add(consumedCount);
+            Thread subscriberThread = new Thread(() -> {
+                List<PatronChangeEvent> batch = new ArrayList<>(256);
+                try (subscription) {
+                    while(writing.get() || consumedCount.get() < expectedEvents) {
+                        consumedCount.addAndGet(subscription.take(batch, 256, 1, TimeUnit.MILLISECONDS));
+                        batch.clear();
+                    }
+                }
+                catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            subscriberThread.start();
+            subscriberThreads.add(subscriberThread);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < patronCount; i++) {
+            LibraryManagementSystem.createPatron(String.valueOf(1_000_000 + i), "Patron " + i, i + " Main St.", "10.00");
+        }
+        for (int i = 0; i < patronCount; i++) {
+            LibraryManagementSystem.updatePatron(String.valueOf(1_000_000 + i), "", "", "12.50");
+        }
+        for (int i = 0; i < patronCount; i++) {
+            LibraryManagementSystem.deletePatron(String.valueOf(1_000_000 + i));
+        }
+        writing.set(false);
+        for (Thread subscriberThread : subscriberThreads) {
+            subscriberThread.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        for (AtomicLong consumedCount : consumedCounts) {
+            if(consumedCount.get() != expectedEvents)
+                throw new IllegalStateException("Subscriber consumed " + consumedCount.get() + " of " + expectedEvents + " events.");
+        }
+        return elapsedNanos;
+    }
+
+    /**
+     * method: importFiles
+     * parameters: int patronCount - the number of lines in each generated file
+     * return: void
+     * purpose: Times importing a clean file and a file with 50% of lines rejected for an out of range fine, best of three runs each after a warm up.
+     */
+    private static void importFiles(int patronCount) throws Exception {
+        File cleanFile = generatePatronFile(patronCount, 0);
+        File halfBadFile = generatePatronFile(patronCount, 50);
+        try {
+            System.out.println("Lines per file: " + patronCount);
+            for (File patronFile : new File[] {cleanFile, halfBadFile}) {
+                long bestNanos = Long.MAX_VALUE;
+                ImportReport report = null;
+                for (int run = 0; run < 4; run++) {
+                    long start = System.nanoTime();
+                    report = LibraryManagementSystem.importPatrons(patronFile.getPath(), new ImportReport());
+                    long elapsedNanos = System.nanoTime() - start;
+                    if(run > 0)
+                        bestNanos = Math.min(bestNanos, elapsedNanos);
+                    deleteGeneratedPatrons(patronCount);
+                }
+                System.out.println((patronFile == cleanFile ? "Clean file: " : "50% rejected: ") + bestNanos / 1_000_000 + " ms ("
+                        + report.getImportedCount() + " imported, " + report.getRejectedCount() + " rejected)");
+            }
+        }
+        finally {
+            cleanFile.delete();
+            halfBadFile.delete();
+        }
+    }
+
+    /**
+     * method: deleteGeneratedPatrons
+     * parameters: int patronCount - the number of patrons that were generated
+     * return: void
+     * purpose: Removes every generated patron that exists, leaving the collection empty for the next run.
+     */
+    private static void deleteGeneratedPatrons(int patronCount) throws Exception {
+        for (int i = 0; i < patronCount; i++) {
+            String id = String.valueOf(1_000_000 + i);
+            if(LibraryManagementSystem.idExists(id))
+                LibraryManagementSystem.deletePatron(id);
+        }
+    }
+
+    /**
+     * method: search
+     * parameters: int patronCount - the number of patrons to generate
+     * return: void
+     * purpose: Imports the generated patrons, times the first search, which builds the name index, then times misspelled name searches for the top 10 matches.
+     */
+    private static void search(int patronCount) throws Exception {
+        File patronFile = generatePatronFile(patronCount, 0);
+        try {
+            long importStart = System.nanoTime();
+            LibraryManagementSystem.importPatrons(patronFile.getPath());
+            long importMillis = (System.nanoTime() - importStart) / 1_000_000;
+
+            long indexStart = System.nanoTime();
+            LibraryManagementSystem.searchPatronsByName(generatePatronName(0), 10);
+            long indexMillis = (System.nanoTime() - indexStart) / 1_000_000;
+
+            //Misspell each searched name by swapping two letters in the last name.
+            int searchCount = 1_000;
+            long matchCount = 0;
+            long searchStart = System.nanoTime();
+            for (int i = 0; i < searchCount; i++) {
+                char[] name = generatePatronName(i * 997 % patronCount).toCharArray();
+                int swap = name.length - 3;
+                char swapped = name[swap];
+                name[swap] = name[swap + 1];
+                name[swap + 1] = swapped;
+                matchCount += LibraryManagementSystem.searchPatronsByName(new String(name), 10).size();
+            }
+            double averageMillis = (System.nanoTime() - searchStart) / 1_000_000.0 / searchCount;
+
+            System.out.println("Patrons: " + patronCount);
+            System.out.println("Import: " + importMillis + " ms");
+            System.out.println("First search, building the name index: " + indexMillis + " ms");
+            System.out.println("Fuzzy name search, top 10: " + String.format("%.3f", averageMillis) + " ms average over " + searchCount + " searches (" + matchCount + " matches)");
+        }
+        finally {
+            patronFile.delete();
+        }
+    }
+
+    /**
+     * method: shards
+     * parameters: int patronCount - the number of patrons to generate
+     *             int maxShards - the largest number of worker processes to try
+     * return: void
+     * purpose: For 1 to maxShards workers, times the routed import, retrieving patrons one at a time through the coordinator,
+     * and totaling fines across all shards. Each worker gets an equal share of a 4 GB heap.
+     * Import scaling needs at least maxShards + 1 processors, one for the coordinator reading the file and one per worker.
+     */
+    private static void shards(int patronCount, int maxShards) throws Exception {
+        File patronFile = generatePatronFile(patronCount, 0);
+        try {
+            int processorCount = Runtime.getRuntime().availableProcessors();
+            System.out.println("Patrons: " + patronCount + ", available processors: " + processorCount);
+            if(processorCount <= maxShards)
+                System.out.println("Fewer processors than coordinator + workers: the workers share CPUs, so these runs show overhead, not scaling.");
+            for (int shardCount = 1; shardCount <= maxShards; shardCount++) {
+                long startupStart = System.nanoTime();
+                try (PatronShardCoordinator coordinator = PatronShardCoordinator.start(shardCount, "-Xmx" + Math.max(256, 4096 / shardCount) + "m")) {
+                    long startupMillis = (System.nanoTime() - startupStart) / 1_000_000;
+
+                    long importStart = System.nanoTime();
+                    ImportReport report = coordinator.importPatrons(patronFile.getPath(), new ImportReport());
+                    long importMillis = (System.nanoTime() - importStart) / 1_000_000;
+
+                    int retrieveCount = 10_000;
+                    long retrieveStart = System.nanoTime();
+                    for (int i = 0; i < retrieveCount; i++) {
+                        coordinator.retrievePatron(String.valueOf(1_000_000 + (int) ((long) i * 7919 % patronCount)));
+                    }
+                    double retrieveMicros = (System.nanoTime() - retrieveStart) / 1_000.0 / retrieveCount;
+
+                    int aggregateCount = 20;
+                    long aggregateStart = System.nanoTime();
+                    for (int i = 0; i < aggregateCount; i++) {
+                        coordinator.getTotalFines();
+                    }
+                    double aggregateMillis = (System.nanoTime() - aggregateStart) / 1_000_000.0 / aggregateCount;
+
+                    System.out.println(shardCount + " shards: start " + startupMillis + " ms, import " + importMillis + " ms ("
+                            + report.getImportedCount() + " imported), retrieve " + String.format("%.1f", retrieveMicros)
+                            + " us, total fines " + String.format("%.1f", aggregateMillis) + " ms");
+                }
+            }
+        }
+        finally {
+            patronFile.delete();
+        }
+    }
+
+    /**
+     * method: startup
+     * parameters: int patronCount - the number of patrons to generate
+     * return: void
+     * purpose: Measures the time from launching a new JVM to its first successful retrievePatron call, the way an operator starts the application:
+     * a cold start followed by a text import, a start restoring a snapshot (as LibraryApp --snapshot does), and the same snapshot start
+     * using an application class-data-sharing archive created by a training run. Each mode is run three times and the best time is reported.
+     * CDS archives can only be created for a class path of jar files, so the CDS mode is skipped when run from a classes directory.
+     */
+    private static void startup(int patronCount) throws Exception {
+        File patronFile = generatePatronFile(patronCount, 0);
+        File snapshotFile = File.createTempFile("patrons", ".snapshot");
+        File archiveFile = File.createTempFile("patrons", ".jsa");
+        String firstQueryId = String.valueOf(1_000_000 + patronCount / 2);
+
+        boolean archiveSupported = true;
+        for (String classPathEntry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if(new File(classPathEntry).isDirectory())
+                archiveSupported = false;
+        }
+
+        try {
+            archiveFile.delete();
+            runStartupChild("prepare", patronFile, snapshotFile, firstQueryId);
+            if(archiveSupported)
+                runStartupChild("restore", patronFile, snapshotFile, firstQueryId, "-XX:ArchiveClassesAtExit=" + archiveFile.getPath());
+
+            long importMillis = Long.MAX_VALUE;
+            long restoreMillis = Long.MAX_VALUE;
+            long archiveRestoreMillis = Long.MAX_VALUE;
+            for (int run = 0; run < 3; run++) {
+                importMillis = Math.min(importMillis, runStartupChild("import", patronFile, snapshotFile, firstQueryId));
+                restoreMillis = Math.min(restoreMillis, runStartupChild("restore", patronFile, snapshotFile, firstQueryId));
+                if(archiveSupported)
+                    archiveRestoreMillis = Math.min(archiveRestoreMillis,
+                            runStartupChild("restore", patronFile, snapshotFile, firstQueryId, "-XX:SharedArchiveFile=" + archiveFile.getPath()));
+            }
+
+            System.out.println("Patrons: " + patronCount + " (" + snapshotFile.length() / 1024 + " KB snapshot), JVM launch to first query, best of 3:");
+            System.out.println("Cold start + text import: " + importMillis + " ms");
+            System.out.println("Snapshot restore: " + restoreMillis + " ms");
+            System.out.println("Snapshot restore + CDS archive: " + (archiveSupported ? archiveRestoreMillis + " ms" : "skipped, run from LibraryManagementSystem.jar to include it"));
+        }
+        finally {
+            patronFile.delete();
+            snapshotFile.delete();
+            archiveFile.delete();
+        }
+    }
+
+    /**
+     * method: runStartupChild
+     * parameters: String mode - prepare, import, or restore (see startupChild)
+     *             File patronFile - the generated patron import file
+     *             File snapshotFile - the snapshot file
+     *             String firstQueryId - the patron ID retrieved as the first query
+     *             String... jvmOptions - extra options for the child JVM
+     * return: long - milliseconds from launching the child JVM until it answered its first query.
+     * throws: IOException - if the child JVM fails.
+     * purpose: Runs one startup mode in a new JVM with the same class path and a 2 GB heap.
+     */
+    private static long runStartupChild(String mode, File patronFile, File snapshotFile, String firstQueryId, String... jvmOptions) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx2g");
+        command.addAll(Arrays.asList(jvmOptions));
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), "LibraryBenchmark", "startup-child",
+                mode, patronFile.getPath(), snapshotFile.getPath(), firstQueryId));
+
+        long launchMillis = System.currentTimeMillis();
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        long readyMillis = -1;
+        try (BufferedReader childReader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while((line = childReader.readLine()) != null) {
+                if(line.startsWith("FIRST_QUERY_AT "))
+                    readyMillis = Long.parseLong(line.substring(15));
+            }
+        }
+        if(process.waitFor() != 0 || readyMillis < 0)
+            throw new IOException("Startup benchmark child failed in " + mode + " mode.");
+        return readyMillis - launchMillis;
+    }
+
+    /**
+     * method: startupChild
+     * parameters: String mode - prepare (import the file and save the snapshot), import (import the file), or restore (load the snapshot)
+     *             String patronFilePath - the generated patron import file
+     *             String snapshotFilePath - the snapshot file
+     *             String firstQueryId - the patron ID retrieved as the first query
+     * return: void
+     * purpose: The body of one startup benchmark JVM. Loads the collection, runs the first query, and prints the wall clock time it finished.
+     */
+    private static void startupChild(String mode, String patronFilePath, String snapshotFilePath, String firstQueryId) throws Exception {
+        if(mode.equals("restore"))
+            LibraryManagementSystem.loadSnapshot(snapshotFilePath);
+        else
+            LibraryManagementSystem.importPatrons(patronFilePath);
+        LibraryManagementSystem.retrievePatron(firstQueryId);
+        System.out.println("FIRST_QUERY_AT " + System.currentTimeMillis());
+
+        if(mode.equals("prepare"))
+            LibraryManagementSystem.saveSnapshot(snapshotFilePath);
+    }
+
+    /**
+     * method: generatePatronFile
+     * parameters: int patronCount - the number of lines to write
+     *             int invalidPercent - the percentage of lines to write with an invalid fine, 0 for a clean file
+     * return: File - the generated temp file in the ID-Name-Address-Fine import format.
+     * purpose: Writes a patron import file with dense 7-digit IDs starting at 1000000.
+     */
+    static File generatePatronFile(int patronCount, int invalidPercent) throws IOException {
+        File patronFile = File.createTempFile("patrons", ".txt");
+        try (BufferedWriter fileWriter = new BufferedWriter(new FileWriter(patronFile))) {
+            for (int i = 0; i < patronCount; i++) {
+                String fine = (i % 100 < invalidPercent) ? "300.00" : (i % 250) + ".50";
+                fileWriter.write((1_000_000 + i) + "-" + generatePatronName(i) + "-" + i + " Main St. Orlando, FL 32822-" + fine);
+                fileWriter.newLine();
+            }
+        }
+        return patronFile;
+    }
+
+    /**
+     * method: generatePatronName
+     * parameters: int patronNumber - the position of the patron in the generated file
+     * return: String - a first name followed by a last name built from three syllables.
+     * purpose: Gives generated patrons varied, realistic looking names so name searches see a realistic spread of trigrams.
+     */
+    static String generatePatronName(int patronNumber) {
+        int syllableCount = NAME_SYLLABLES.length;
+        int lastNameNumber = patronNumber / FIRST_NAMES.length;
+        String lastName = NAME_SYLLABLES[lastNameNumber % syllableCount]
+                + NAME_SYLLABLES[(lastNameNumber / syllableCount) % syllableCount]
+                + NAME_SYLLABLES[(lastNameNumber / (syllableCount * syllableCount)) % syllableCount];
+        return FIRST_NAMES[patronNumber % FIRST_NAMES.length] + " " + Character.toUpperCase(lastName.charAt(0)) + lastName.substring(1);
+    }
+}
@@ -1,7 +1,11 @@
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.Scanner;
 
 /**
  * Steven Pride
@@ -10,7 +14,7 @@ import java.util.Scanner;
  * LibraryApp
  * Provides the core business logic for the Library Management System (Business Logic Layer).
  * Provides methods for importing patron data from a file, creating new patrons,
- * retrieving patrons, updating patrons, deleting patrons, and listing all patrons.
+ * retrieving patrons, updating patrons, deleting patrons, listing all patrons, and searching patrons by name.
  * Outside credit: StringBuilder was a recommended refactoring by the IDE, I accepted it because it felt more elegant than string = string + newString in the for loops.
  *      I have used StringBuilder in C# but hadn't used it in Java before. I wanted to give credit to the IDE for full transparency.
  */
@@ -18,70 +22,118 @@ public class LibraryManagementSystem {
     /**
      * Class attributes:
      *     patronCollection: HashMap<Patron> - this is the collection of Patron objects stored in the memory of the application.
+     *     nameIndex: PatronNameIndex - trigram index over the patron names in the collection, used for fuzzy name search.
+     *         null until the first name search builds it, so neither a file import nor a snapshot restore pays for indexing.
+     *         Once built, it is kept up to date by every later create, update, delete, and import.
+     *         A snapshot restore replaces the collection, so it sets the index back to null.
+     *     changeFeed: PatronChangeFeed - feed of create, update, and delete events for downstream subscribers, buffering up to 8192 events
+     *         before the write path waits for the slowest subscriber.
      */
     private static Map<String, Patron> patronCollection = new HashMap<>();
+    private static PatronNameIndex nameIndex = null;
+    private static final PatronChangeFeed changeFeed = new PatronChangeFeed(8192);
+
+    /**
+     * Snapshot file constants:
+     *     SNAPSHOT_MAGIC: int - marker written at the start of every snapshot file ("LMSS")
+     *     SNAPSHOT_VERSION: int - version of the snapshot layout, bumped whenever the record format changes
+     *         (version 2 stores strings as length-prefixed UTF-8 instead of writeUTF, so null and very long values can be saved)
+     */
+    private static final int SNAPSHOT_MAGIC = 0x4C4D5353;
+    private static final int SNAPSHOT_VERSION = 2;
 
     /**
      * method: importPatrons
      * parameters: String filePath - path to the patron data file
-     * return: String - count of successes and any exception messages.
+     * return: String - count of successes and the reason each failed line was rejected.
      * throws: IOException - if the file cannot be read for any reason.
-     * purpose: Reads the file from the parameter, parses each line, and validates the number of columns.
-     * Calls the LibraryManagementSystem.createPatrons method to create a new patron in the collection.
+     * purpose: Imports the file with an in-memory ImportReport and returns the report summary for display.
+     */
+    public static String importPatrons(String filePath) throws IOException {
+        return importPatrons(filePath, new ImportReport()).toString();
+    }
+
+    /**
+     * method: importPatrons
+     * parameters: String filePath - path to the patron data file
+     *             ImportReport report - the report the imported count and rejected lines are recorded in
+     * return: ImportReport - the report that was passed in.
+     * throws: IOException - if the file cannot be opened, or the report is streamed and cannot be written.
+     * purpose: Reads the file from the parameter, parses each line, and validates the number of columns, the ID, and the fine.
+     * The ID and fine follow the same rules as createPatron (Patron.checkId and Patron.checkFine).
      * Expecting a file format of ID-Name-Address-Fine.
-     * Returns a count of successful entries and any exception messages, concatenated in a string.
+     * Valid lines are added to the collection. Invalid lines are recorded in the report with their line number, reason, and column,
+     * in file order, without creating an exception for each one. A read error part way through is recorded as the last rejection.
      */
-    public static String importPatrons(String filePath) throws Exception {
+    public static ImportReport importPatrons(String filePath, ImportReport report) throws IOException {
         /**
          * Method attributes:
-         *     successfulEntryCount: int - The count of successful entries
-         *     exceptionHashMap: HashMap<String, Exception> - The key value pair of failed entries and their exceptions
+         *     lineNumber: int - The 1-based number of the line being read from the file
          *     importLine: String - The current line being read from the file
          */
-        int successfulEntryCount = 0;
-        HashMap<String, Exception> exceptionHashMap = new HashMap<>();
-        String importLine = null;
+        int lineNumber = 0;
+        String importLine;
 
         //Check if the file exists and is readable.
         File patronFile = new File(filePath);
         if(!patronFile.exists() || !patronFile.canRead())
             throw new IOException("Error reading file. Check that the file exists and is readable.");
 
-        //Read each line of the file and attempt to create a new patron.
-        try (Scanner fileReader = new Scanner(patronFile);) {
-            while(fileReader.hasNextLine()) {
-                importLine = fileReader.nextLine();
-                String[] splitLine = importLine.split("-");
-
-                try {
-                    //Validate the number of columns in the line, expecting 4 columns.
-                    if (splitLine.length != 4) {
-                        throw new Exception("Invalid data format. Expected 4 columns, found " + splitLine.length + ".");
-                    }
-
-                    if (createPatron(splitLine[0].trim(), splitLine[1].trim(), splitLine[2].trim(), splitLine[3].trim()))
-                        successfulEntryCount++;
-                }
-                catch(Exception e) {
-                    exceptionHashMap.put(importLine, e);
-                }
+        //Read each line of the file and add each valid patron.
+        try (BufferedReader fileReader = new BufferedReader(new FileReader(patronFile))) {
+            while((importLine = readImportLine(fileReader, lineNumber + 1, report)) != null) {
+                lineNumber++;
+                String[] columns = splitImportLine(importLine);
+                ImportReport.RejectionReason rejection = columns == null ? ImportReport.RejectionReason.WRONG_COLUMN_COUNT : Patron.checkId(columns[0]);
+                if(rejection == null)
+                    rejection = importPatron(columns[0], columns[1], columns[2], columns[3]);
+
+                if(rejection == null)
+                    report.recordImported();
+                else
+                    report.recordRejected(lineNumber, rejection);
             }
         }
-        catch(Exception e) {
-            exceptionHashMap.put(importLine, e);
-        }
 
-        //Create a concatenated string of the results of the import.
-        StringBuilder statusMessage = new StringBuilder();
-        statusMessage.append("Successfully imported ").append(successfulEntryCount).append(" patrons.");
+        report.flush();
+        return report;
+    }
 
-        if(!exceptionHashMap.isEmpty())
-            statusMessage.append("\nThe following lines failed");
+    /**
+     * method: importPatron
+     * parameters: String id - the trimmed patron ID from an import line, already accepted by Patron.checkId
+     *             String name - the trimmed patron name
+     *             String address - the trimmed patron address
+     *             String fine - the trimmed overdue fine amount, not yet validated
+     * return: ImportReport.RejectionReason - why the patron was not imported, or null if it was added to the collection.
+     * purpose: Imports one line's patron: rejects a duplicate ID or an invalid fine without throwing, otherwise adds the patron.
+     * Shared by importPatrons and the shard workers, which receive lines the coordinator has already split and checked the ID of.
+     */
+    static ImportReport.RejectionReason importPatron(String id, String name, String address, String fine) {
+        if(patronCollection.containsKey(id))
+            return ImportReport.RejectionReason.DUPLICATE_ID;
+        ImportReport.RejectionReason fineRejection = Patron.checkFine(fine);
+        if(fineRejection != null)
+            return fineRejection;
+
+        addPatron(new Patron(id, name, address, Double.parseDouble(fine)));
+        return null;
+    }
 
-        for (Map.Entry<String, Exception> entry : exceptionHashMap.entrySet()) {
-            statusMessage.append("\nLine: ").append(entry.getKey()).append(" Exception: ").append(entry.getValue().getMessage()).append("\n-----------------------------");
+    /**
+     * method: splitImportLine
+     * parameters: String importLine - one line of an import file
+     * return: String[] - the trimmed ID, name, address, and fine, or null if the line does not have exactly 4 columns.
+     * purpose: Splits an ID-Name-Address-Fine line. Shared by importPatrons and PatronShardCoordinator so both read files the same way.
+     */
+    static String[] splitImportLine(String importLine) {
+        String[] columns = importLine.split("-");
+        if(columns.length != 4)
+            return null;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = columns[i].trim();
         }
-        return statusMessage.toString();
+        return columns;
     }
 
     /**
@@ -100,8 +152,7 @@ public class LibraryManagementSystem {
             if(retrievePatronById(id) != null)
                 throw new IllegalArgumentException("Patron with id " + id + " already exists.");
             else {
-                Patron patron = new Patron(id, name, address, fine);
-                patronCollection.put(id, patron);
+                addPatron(new Patron(id, name, address, fine));
                 return true;
             }
         } catch(Exception e){
@@ -135,19 +186,28 @@ public class LibraryManagementSystem {
      * return: boolean - true if the patron was updated successfully.
      * throws: IllegalArgumentException - if the patron ID does not exist in the collection
      * purpose: Update a Patron object with the name, address, and fine amount if the patron ID exists in the collection.
-     * Blank values are ignored for the update.
+     * Blank values are ignored for the update. The fine is validated before anything is changed, so a rejected update leaves the patron untouched.
      */
     public static boolean updatePatron(String id, String name, String address, String fine) throws Exception {
             Patron patron = retrievePatronById(id);
             if(patron == null)
                 throw new IllegalArgumentException("No Patron found with id " + id.trim());
-            if(name != null && !name.trim().isEmpty())
+            if(fine != null && !fine.trim().isEmpty())
+                Patron.validateFine(fine);
+
+            PatronChangeEvent.PatronValues before = changeFeed.readyToPublish() ? new PatronChangeEvent.PatronValues(patron) : null;
+            if(name != null && !name.trim().isEmpty()) {
                 patron.setName(name);
+                if(nameIndex != null)
+                    nameIndex.add(id, name);
+            }
             if(address != null && !address.trim().isEmpty())
                 patron.setAddress(address);
             if(fine != null && !fine.trim().isEmpty())
                 patron.setFine(fine);
             patronCollection.put(id, patron);
+            if(before != null)
+                changeFeed.publish(new PatronChangeEvent(PatronChangeEvent.ChangeType.UPDATE, id, before, new PatronChangeEvent.PatronValues(patron)));
             return true;
     }
 
@@ -160,7 +220,11 @@ public class LibraryManagementSystem {
      */
     public static boolean deletePatron(String id) {
         if(retrievePatronById(id) != null) {
-            patronCollection.remove(id);
+            Patron removedPatron = patronCollection.remove(id);
+            if(nameIndex != null)
+                nameIndex.remove(id);
+            if(changeFeed.readyToPublish())
+                changeFeed.publish(new PatronChangeEvent(PatronChangeEvent.ChangeType.DELETE, id, new PatronChangeEvent.PatronValues(removedPatron), null));
             return true;
         }
         else
@@ -186,6 +250,156 @@ public class LibraryManagementSystem {
         }
     }
 
+    /**
+     * method: searchPatronsByName
+     * parameters: String name - the full or partial patron name to search for, misspellings allowed
+     *             int limit - the maximum number of patrons to return
+     * return: List<Patron> - the closest matching patrons, best match first. Empty if nothing is similar enough.
+     * throws: IllegalArgumentException - if the name is empty
+     * purpose: Finds patrons by name using the trigram name index, so librarians can find a patron without knowing the exact ID or spelling.
+     * The first search, at startup or after a snapshot restore, builds the index from the collection.
+     */
+    public static List<Patron> searchPatronsByName(String name, int limit) {
+        if(name == null || name.trim().isEmpty())
+            throw new IllegalArgumentException("Search name cannot be empty.");
+
+        if(nameIndex == null) {
+            PatronNameIndex builtNameIndex = new PatronNameIndex();
+            for (Patron patron : patronCollection.values()) {
+                builtNameIndex.add(patron.getId(), patron.getName());
+            }
+            nameIndex = builtNameIndex;
+        }
+
+        List<Patron> matches = new ArrayList<>();
+        for (String id : nameIndex.search(name, limit)) {
+            matches.add(patronCollection.get(id));
+        }
+        return matches;
+    }
+
+    /**
+     * method: subscribeToChanges
+     * parameters: none
+     * return: PatronChangeFeed.Subscription - a subscription receiving every create, update, and delete made from now on.
+     * purpose: Lets downstream systems, such as billing and notices, follow changes to patrons and their fines without diffing listPatrons output.
+     * Events carry read-only values of the patron before and after the change, shared by every subscriber. Restoring a snapshot replaces the collection without publishing events.
+     * Close the subscription when finished, otherwise the write path will wait once the feed buffer fills up.
+     */
+    public static PatronChangeFeed.Subscription subscribeToChanges() {
+        return changeFeed.subscribe();
+    }
+
+    /**
+     * method: saveSnapshot
+     * parameters: String filePath - path of the snapshot file to write
+     * return: int - the number of patrons written to the snapshot.
+     * throws: IOException - if the snapshot file cannot be written.
+     * purpose: Writes every patron in the collection to a compact binary snapshot so the next launch can restore the collection without a text import.
+     * The snapshot is written to a temporary file first and then moved over the target, so a failed write never replaces a good snapshot.
+     */
+    public static int saveSnapshot(String filePath) throws IOException {
+        File snapshotFile = new File(filePath);
+        File tempFile = new File(snapshotFile.getPath() + ".tmp");
+
+        try (DataOutputStream snapshotWriter = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16))) {
+            snapshotWriter.writeInt(SNAPSHOT_MAGIC);
+            snapshotWriter.writeInt(SNAPSHOT_VERSION);
+            snapshotWriter.writeInt(patronCollection.size());
+            for (Patron patron : patronCollection.values()) {
+                writeSnapshotString(snapshotWriter, patron.getId());
+                writeSnapshotString(snapshotWriter, patron.getName());
+                writeSnapshotString(snapshotWriter, patron.getAddress());
+                snapshotWriter.writeDouble(patron.getFine());
+            }
+        }
+
+        Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return patronCollection.size();
+    }
+
+    /**
+     * method: loadSnapshot
+     * parameters: String filePath - path of the snapshot file to read
+     * return: int - the number of patrons restored from the snapshot.
+     * throws: IOException - if the file cannot be read, is not a patron snapshot, or is corrupt.
+     * purpose: Replaces the patron collection with the patrons stored in a snapshot written by saveSnapshot.
+     * The patron count and every string length are checked against the size of the file before anything is allocated,
+     * so a corrupt file is reported as an IOException instead of running out of memory.
+     * The values were validated when they were first entered, so they are restored without re-parsing,
+     * and the collection is sized up front so it never rehashes while loading. The name index is not rebuilt here,
+     * the first searchPatronsByName call builds it, so startup only pays for it when name search is used.
+     */
+    public static int loadSnapshot(String filePath) throws IOException {
+        File snapshotFile = new File(filePath);
+        if(!snapshotFile.exists() || !snapshotFile.canRead())
+            throw new IOException("Error reading snapshot. Check that the file exists and is readable.");
+
+        try (DataInputStream snapshotReader = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile), 1 << 16))) {
+            if(snapshotReader.readInt() != SNAPSHOT_MAGIC || snapshotReader.readInt() != SNAPSHOT_VERSION)
+                throw new IOException("Error reading snapshot. " + filePath + " is not a supported patron snapshot.");
+
+            //Each patron takes at least 20 bytes: three string lengths and the fine.
+            long snapshotLength = snapshotFile.length();
+            int patronCount = snapshotReader.readInt();
+            if(patronCount < 0 || patronCount > (snapshotLength - 12) / 20)
+                throw new IOException("Error reading snapshot. " + filePath + " is corrupt.");
+            Map<String, Patron> restoredCollection = new HashMap<>((int) (patronCount / 0.75f) + 1);
+            for (int i = 0; i < patronCount; i++) {
+                String id = readSnapshotString(snapshotReader, snapshotLength);
+                String name = readSnapshotString(snapshotReader, snapshotLength);
+                String address = readSnapshotString(snapshotReader, snapshotLength);
+                double fine = snapshotReader.readDouble();
+                restoredCollection.put(id, new Patron(id, name, address, fine));
+            }
+
+            patronCollection = restoredCollection;
+            nameIndex = null;
+            return patronCount;
+        }
+        catch(EOFException e) {
+            throw new IOException("Error reading snapshot. " + filePath + " is truncated.");
+        }
+    }
+
+    /**
+     * method: writeSnapshotString
+     * parameters: DataOutputStream snapshotWriter - the open snapshot file
+     *             String value - the value to write, may be null
+     * return: void
+     * throws: IOException - if the snapshot file cannot be written.
+     * purpose: Writes a string as its UTF-8 byte length and bytes, or -1 for null. Unlike writeUTF there is no 64 KB limit,
+     * so any name or address accepted by createPatron can be saved.
+     */
+    private static void writeSnapshotString(DataOutputStream snapshotWriter, String value) throws IOException {
+        if(value == null) {
+            snapshotWriter.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        snapshotWriter.writeInt(bytes.length);
+        snapshotWriter.write(bytes);
+    }
+
+    /**
+     * method: readSnapshotString
+     * parameters: DataInputStream snapshotReader - the open snapshot file
+     *             long snapshotLength - the size of the snapshot file in bytes, no valid string is longer
+     * return: String - the value written by writeSnapshotString, or null.
+     * throws: IOException - if the snapshot file cannot be read or holds an invalid length.
+     * purpose: Reads one string written by writeSnapshotString.
+     */
+    private static String readSnapshotString(DataInputStream snapshotReader, long snapshotLength) throws IOException {
+        int length = snapshotReader.readInt();
+        if(length == -1)
+            return null;
+        if(length < 0 || length > snapshotLength)
+            throw new IOException("Error reading snapshot. The snapshot is corrupt.");
+        byte[] bytes = new byte[length];
+        snapshotReader.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
     /**
      * method: validateFine
      * parameters: String fine - the patron overdue fine amount
@@ -196,6 +410,41 @@ public class LibraryManagementSystem {
         return Patron.validateFine(fine);
     }
 
+    /**
+     * method: getPatronCount
+     * parameters: none
+     * return: int - the number of patrons in the collection.
+     * purpose: Counts the patrons in the collection.
+     */
+    public static int getPatronCount() {
+        return patronCollection.size();
+    }
+
+    /**
+     * method: getTotalFines
+     * parameters: none
+     * return: double - the sum of the overdue fines of every patron in the collection.
+     * purpose: Totals the outstanding overdue fines.
+     */
+    public static double getTotalFines() {
+        double totalFines = 0.00;
+        for (Patron patron : patronCollection.values()) {
+            totalFines += patron.getFine();
+        }
+        return totalFines;
+    }
+
+    /**
+     * method: shardOf
+     * parameters: String id - a valid, trimmed patron ID number
+     *             int shardCount - the number of shards the patrons are split across
+     * return: int - the shard that holds the patron, from 0 to shardCount - 1.
+     * purpose: Maps a patron ID to its shard. IDs are dense 7-digit numbers, so the ID modulo the shard count spreads patrons evenly.
+     */
+    public static int shardOf(String id, int shardCount) {
+        return Integer.parseInt(id) % shardCount;
+    }
+
     /**
      * method: isPatronCollectionEmpty
      * parameters: none
@@ -219,6 +468,40 @@ public class LibraryManagementSystem {
             return false;
     }
 
+    /**
+     * method: addPatron
+     * parameters: Patron patron - the validated patron to add, with an ID not already in the collection
+     * return: void
+     * purpose: Adds the patron to the collection and the name index, and publishes the create event if anyone is subscribed.
+     * Shared by createPatron and importPatrons so both keep the index and change feed up to date.
+     */
+    private static void addPatron(Patron patron) {
+        patronCollection.put(patron.getId(), patron);
+        if(nameIndex != null)
+            nameIndex.add(patron.getId(), patron.getName());
+        if(changeFeed.readyToPublish())
+            changeFeed.publish(new PatronChangeEvent(PatronChangeEvent.ChangeType.CREATE, patron.getId(), null, new PatronChangeEvent.PatronValues(patron)));
+    }
+
+    /**
+     * method: readImportLine
+     * parameters: BufferedReader fileReader - the open import file
+     *             int lineNumber - the number of the line about to be read
+     *             ImportReport report - where a read error is recorded
+     * return: String - the next line, or null at the end of the file or after a read error.
+     * throws: IOException - if the report is streamed and the read error cannot be written.
+     * purpose: Reads the next import line, recording a read error as a rejection so the lines imported so far are still reported.
+     */
+    private static String readImportLine(BufferedReader fileReader, int lineNumber, ImportReport report) throws IOException {
+        try {
+            return fileReader.readLine();
+        }
+        catch(IOException e) {
+            report.recordRejected(lineNumber, ImportReport.RejectionReason.READ_ERROR);
+            return null;
+        }
+    }
+
     /**
      * method: retrievePatronById
      * parameters: String id - the patron ID number
@@ -39,6 +39,23 @@ public class Patron {
         setFine(fine);
     }
 
+    /**
+     * method: Patron constructor (pre-validated values)
+     * parameters: String id - the patron ID number
+     *             String name - the patron name
+     *             String address - the patron address
+     *             double fine - the patron overdue fine amount, already parsed
+     * return: A new Patron object.
+     * purpose: Initializes a new Patron object from values that were already validated when they were first entered, for example when restoring a snapshot.
+     * Skips ID and fine validation and the string to double conversion, so it is only visible to the business logic layer.
+     */
+    Patron(String id, String name, String address, double fine) {
+        this.id = id;
+        this.name = name;
+        this.address = address;
+        this.fine = fine;
+    }
+
     //Getters
     public String getId() {
         return id;
@@ -109,70 +126,87 @@ public class Patron {
         return "ID: " + id + "\nName: " + name + "\nAddress: " + address + "\nFine: $" + String.format("%.2f", fine) + "\n-----------------------------";
     }
 
-     /**
+    /**
      * method: validateId
      * parameters: String id - the patron ID number
      * return: true if the id is 7 digits and contains only numbers, throws an exception otherwise
      * throws: IllegalArgumentException - if the ID is empty or not 7 digits or contains non-numeric characters.
-     *      *         Exception - if an unexpected error occurs during ID validation
-     * purpose: Validates the ID is 7 digits and contains only numbers.
+     * purpose: Validates the ID is 7 digits and contains only numbers, using the same rule as checkId.
      */
-    public static boolean validateId(String id) throws Exception {
-        if( id == null || id.trim().isEmpty())
-            throw new IllegalArgumentException("Patron ID cannot be empty.");
-
-        if(id.trim().length() != 7)
-            throw new IllegalArgumentException("Patron ID must be 7 digits.");
-
-        try {
-            Integer.parseInt(id.trim());
-            return true;
-        }
-        //Catch if the ID is not parsable to an integer, meaning it contains non-numeric characters
-        catch(NumberFormatException e) {
-            throw new IllegalArgumentException("Patron ID must be only numbers.");
-        }
-        //Catch all other exceptions
-        catch(Exception e) {
-            throw new Exception("An unexpected error occurred during ID validation: " + e.getMessage());
-        }
+    public static boolean validateId(String id) {
+        ImportReport.RejectionReason rejection = checkId(id);
+        if(rejection != null)
+            throw new IllegalArgumentException(rejection.getMessage());
+        return true;
     }
 
     /**
      * method: validateFine
      * parameters: String fine - the patron overdue fine amount
      * return: true if the fine is a valid decimal number and in range, throws an exception otherwise
-     * throws: IllegalArgumentException - if the fine is empty or not a decimal number.
-     *         Exception - if an unexpected error occurs during fine validation.
-     * purpose: Validates the fine is a decimal number in the range of 0.00-250.00.
+     * throws: IllegalArgumentException - if the fine is empty, not a decimal number, or out of range.
+     * purpose: Validates the fine is a decimal number in the range of 0.00-250.00, using the same rule as checkFine.
      */
-    public static boolean validateFine(String fine) throws Exception {
-        /**
-         * Method attributes:
-         *     doubleFine: double - Parsed from String fine, the overdue fine amount of the patron, with a range of 0.00 – 250.00
-         */
-        double doubleFine = 0.00;
-
-        if(fine == null || fine.trim().isEmpty())
-            throw new IllegalArgumentException("Fine cannot be empty.");
+    public static boolean validateFine(String fine) {
+        ImportReport.RejectionReason rejection = checkFine(fine);
+        if(rejection != null)
+            throw new IllegalArgumentException(rejection.getMessage());
+        return true;
+    }
 
-        try {
-            doubleFine = Double.parseDouble(fine.trim());
-        }
-        //Catch if the fine is not parsable to a double, meaning it is not in the format of 0.00
-        catch(NumberFormatException e) {
-            throw new IllegalArgumentException("Patron Overdue fine must be in the format of 0.00, you can only use numbers and one decimal point.");
-        }
-        //Catch all other exceptions
-        catch(Exception e) {
-            throw new Exception("An unexpected error occurred during Overdue fine validation: " + e.getMessage());
+    /**
+     * method: checkId
+     * parameters: String id - the patron ID number, surrounding spaces are ignored
+     * return: ImportReport.RejectionReason - why the ID is invalid, or null if it is valid.
+     * purpose: The one ID rule, shared by validateId and the file import: exactly 7 of the digits 0-9 and nothing else.
+     * Does not throw, so an import can reject many lines cheaply.
+     */
+    public static ImportReport.RejectionReason checkId(String id) {
+        if(id == null || id.trim().isEmpty())
+            return ImportReport.RejectionReason.EMPTY_ID;
+
+        String trimmedId = id.trim();
+        if(trimmedId.length() != 7)
+            return ImportReport.RejectionReason.ID_NOT_7_DIGITS;
+        for (int i = 0; i < trimmedId.length(); i++) {
+            char character = trimmedId.charAt(i);
+            if(character < '0' || character > '9')
+                return ImportReport.RejectionReason.ID_NOT_NUMERIC;
         }
+        return null;
+    }
 
-        //Check if in range
-        if (doubleFine < 0.00 || doubleFine > 250.00)
-            throw new IllegalArgumentException("Overdue fine must be between 0.00 and 250.00.");
+    /**
+     * method: checkFine
+     * parameters: String fine - the patron overdue fine amount, surrounding spaces are ignored
+     * return: ImportReport.RejectionReason - why the fine is invalid, or null if it is valid.
+     * purpose: The one fine rule, shared by validateFine and the file import: only the digits 0-9 and at most one decimal point,
+     * at least one digit, in the range of 0.00 to 250.00. Signs, exponents, type suffixes, NaN, and Infinity are all rejected,
+     * so "1e2", "+5", and "5d" are invalid even though Double.parseDouble accepts them. A fine that passes can be parsed with Double.parseDouble.
+     * Does not throw, so an import can reject many lines cheaply.
+     */
+    public static ImportReport.RejectionReason checkFine(String fine) {
+        if(fine == null || fine.trim().isEmpty())
+            return ImportReport.RejectionReason.EMPTY_FINE;
+
+        String trimmedFine = fine.trim();
+        boolean digitFound = false;
+        boolean decimalPointFound = false;
+        for (int i = 0; i < trimmedFine.length(); i++) {
+            char character = trimmedFine.charAt(i);
+            if(character >= '0' && character <= '9')
+                digitFound = true;
+            else if(character == '.' && !decimalPointFound)
+                decimalPointFound = true;
+            else
+                return ImportReport.RejectionReason.FINE_NOT_DECIMAL;
+        }
+        if(!digitFound)
+            return ImportReport.RejectionReason.FINE_NOT_DECIMAL;
 
-        return true;
+        //Check if in range, the format check above already rules out negative values.
+        if(Double.parseDouble(trimmedFine) > 250.00)
+            return ImportReport.RejectionReason.FINE_OUT_OF_RANGE;
+        return null;
     }
 }
-
@@ -0,0 +1,130 @@
+/**
+ * Steven Pride
+ * CEN 3024 - Software Development I
+ * 09/13/25
+ * LibraryApp
+ * Describes one change to the patron collection, published to the PatronChangeFeed (Data Model Layer).
+ * Holds the type of change, the patron ID, and the patron's values before and after the change.
+ * The before value is null for a create and the after value is null for a delete.
+ * Events are immutable: the same event object is handed to every subscriber, so none of them can change what the others see.
+ */
+public class PatronChangeEvent {
+    /**
+     * The kinds of change made to the patron collection.
+     */
+    public enum ChangeType {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    /**
+     * Read-only values of a patron at the time of a change. Unlike Patron there are no setters, so subscribers can share them safely.
+     */
+    public static final class PatronValues {
+        /**
+         * Class attributes:
+         *     id: String - 7-digit patron ID number.
+         *     name: String - full name of patron.
+         *     address: String - full address of patron.
+         *     fine: double - Overdue fine amount of the patron.
+         */
+        private final String id;
+        private final String name;
+        private final String address;
+        private final double fine;
+
+        /**
+         * method: PatronValues constructor
+         * parameters: Patron patron - the patron whose current values are captured
+         * return: A new PatronValues object.
+         * purpose: Captures the patron's current values, so later updates to the patron do not alter them.
+         */
+        public PatronValues(Patron patron) {
+            this.id = patron.getId();
+            this.name = patron.getName();
+            this.address = patron.getAddress();
+            this.fine = patron.getFine();
+        }
+
+        //Getters
+        public String getId() {
+            return id;
+        }
+        public String getName() {
+            return name;
+        }
+        public String getAddress() {
+            return address;
+        }
+        public double getFine() {
+            return fine;
+        }
+
+        /**
+         * method: toString
+         * parameters: none
+         * return: String - the values in the same format as Patron.toString.
+         * purpose: Displays the captured values the same way the patron itself is displayed.
+         */
+        @Override
+        public String toString() {
+            return "ID: " + id + "\nName: " + name + "\nAddress: " + address + "\nFine: $" + String.format("%.2f", fine) + "\n-----------------------------";
+        }
+    }
+
+    /**
+     * Class attributes:
+     *     changeType: ChangeType - whether the patron was created, updated, or deleted
+     *     id: String - the ID of the patron that changed
+     *     before: PatronValues - the patron's values before the change, null for a create
+     *     after: PatronValues - the patron's values after the change, null for a delete
+     */
+    private final ChangeType changeType;
+    private final String id;
+    private final PatronValues before;
+    private final PatronValues after;
+
+    /**
+     * method: PatronChangeEvent constructor
+     * parameters: ChangeType changeType - the kind of change
+     *             String id - the patron ID number
+     *             PatronValues before - the patron's values before the change, or null
+     *             PatronValues after - the patron's values after the change, or null
+     * return: A new PatronChangeEvent object.
+     * purpose: Initializes a change event.
+     */
+    public PatronChangeEvent(ChangeType changeType, String id, PatronValues before, PatronValues after) {
+        this.changeType = changeType;
+        this.id = id;
+        this.before = before;
+        this.after = after;
+    }
+
+    //Getters
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+    public String getId() {
+        return id;
+    }
+    public PatronValues getBefore() {
+        return before;
+    }
+    public PatronValues getAfter() {
+        return after;
+    }
+
+    /**
+     * method: toString
+     * parameters: none
+     * return: String - a one line description of the change.
+     * purpose: Returns the change type, the patron ID, and the fine before and after the change, the value billing and notices care about.
+     */
+    @Override
+    public String toString() {
+        String beforeFine = before == null ? "none" : String.format("%.2f", before.getFine());
+        String afterFine = after == null ? "none" : String.format("%.2f", after.getFine());
+        return changeType + " " + id + " fine " + beforeFine + " -> " + afterFine;
+    }
+}
@@ -0,0 +1,224 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Steven Pride
+ * CEN 3024 - Software Development I
+ * 09/13/25
+ * LibraryApp
+ * In-process feed of changes to the patron collection, so downstream systems such as billing and notices can follow fine changes (Business Logic Layer).
+ * Events are stored in a fixed size ring buffer. Every event gets the next sequence number and is stored at that sequence modulo the capacity.
+ * Each subscriber keeps its own cursor (the last sequence it consumed) and reads events in batches on its own thread.
+ * The feed is lock-free: the writer and the subscribers only communicate through the published sequence and the subscriber cursors.
+ * Backpressure: the writer never overwrites an event a subscriber has not consumed yet, it waits for the slowest subscriber instead.
+ * Once every subscriber has consumed an event, the writer clears its slot, so the buffer does not keep old events and their patron values alive.
+ * There is a single writer, LibraryManagementSystem, which already requires its create, update, and delete calls to come from one thread.
+ * When nobody is subscribed, publishing is skipped entirely, so the write path only pays for a subscriber check.
+ */
+public class PatronChangeFeed {
+    /**
+     * Class attributes:
+     *     buffer: PatronChangeEvent[] - the ring buffer, the event with sequence s is stored at index s & mask
+     *     mask: int - capacity - 1, the capacity is a power of two so the index is a bit mask instead of a division
+     *     publishedSequence: AtomicLong - the sequence of the latest event subscribers may read, -1 before the first event
+     *     subscriptions: CopyOnWriteArrayList<Subscription> - the open subscriptions, read by the writer on every publish
+     *     releasedSequence: long - the latest sequence whose slot the writer has cleared, only used by the writer
+     */
+    private final PatronChangeEvent[] buffer;
+    private final int mask;
+    private final AtomicLong publishedSequence = new AtomicLong(-1);
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private long releasedSequence = -1;
+
+    /**
+     * method: PatronChangeFeed constructor
+     * parameters: int capacity - the number of events the ring buffer holds, must be a power of two
+     * return: A new PatronChangeFeed object.
+     * throws: IllegalArgumentException - if the capacity is not a positive power of two
+     * purpose: Initializes an empty feed. The capacity is how far the writer can get ahead of the slowest subscriber before it waits.
+     */
+    public PatronChangeFeed(int capacity) {
+        if(capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Change feed capacity must be a power of two.");
+        buffer = new PatronChangeEvent[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * method: hasSubscribers
+     * parameters: none
+     * return: boolean - true if at least one subscription is open.
+     * purpose: Lets the writer skip building events when nobody is listening.
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * method: readyToPublish
+     * parameters: none
+     * return: boolean - true if at least one subscription is open, so the writer should build and publish its event.
+     * purpose: The writer's subscriber check. When nobody is subscribed, also clears the slots of events left in the buffer
+     * after the last subscription closed, so they are not kept alive until the next subscriber arrives.
+     * Must only be called by the single writer thread.
+     */
+    public boolean readyToPublish() {
+        if(!subscriptions.isEmpty())
+            return true;
+        releaseConsumedSlots(publishedSequence.get());
+        return false;
+    }
+
+    /**
+     * method: subscribe
+     * parameters: none
+     * return: Subscription - a new subscription that receives every event published from now on.
+     * purpose: Registers a new subscriber. The subscription must be closed when no longer used, otherwise the writer will eventually wait on it.
+     * The subscription is registered before its cursor is set, with a cursor that holds the writer back, so the writer cannot
+     * lap the buffer between reading the published sequence and the writer seeing the new subscription.
+     * Adding the subscription and publishing are both full volatile writes followed by a volatile read of the other side,
+     * so either this subscriber sees the writer's latest sequence or the writer sees this subscription.
+     */
+    public Subscription subscribe() {
+        Subscription subscription = new Subscription();
+        subscriptions.add(subscription);
+        subscription.consumedSequence.setRelease(publishedSequence.get());
+        return subscription;
+    }
+
+    /**
+     * method: publish
+     * parameters: PatronChangeEvent event - the change to publish
+     * return: void
+     * purpose: Adds the event to the ring buffer and makes it visible to subscribers.
+     * If the slot still holds an event the slowest subscriber has not consumed, waits until it has.
+     * Then clears the slots of events every subscriber has consumed.
+     * Must only be called by the single writer thread.
+     */
+    public void publish(PatronChangeEvent event) {
+        long sequence = publishedSequence.get() + 1;
+
+        //The slot is free once every subscriber has consumed the event published one full lap earlier.
+        long wrapSequence = sequence - buffer.length;
+        long slowestSequence = slowestConsumedSequence();
+        while(wrapSequence > slowestSequence) {
+            LockSupport.parkNanos(1_000);
+            slowestSequence = slowestConsumedSequence();
+        }
+
+        buffer[(int) sequence & mask] = event;
+        //A full volatile write, not a release: it must not be reordered with the later read of the subscription list,
+        //otherwise a subscriber could read the old sequence while this writer still misses its subscription and clears its next slot.
+        publishedSequence.set(sequence);
+
+        //A subscription that was not counted above started after sequence - 1 was published, so it never reads up to sequence - 1.
+        releaseConsumedSlots(Math.min(slowestSequence, sequence - 1));
+    }
+
+    /**
+     * method: releaseConsumedSlots
+     * parameters: long consumedSequence - a sequence every subscriber has consumed, or that no subscriber will read
+     * return: void
+     * purpose: Clears the slots of events up to consumedSequence that are still in the buffer, so the events can be garbage collected.
+     * Must only be called by the single writer thread.
+     */
+    private void releaseConsumedSlots(long consumedSequence) {
+        //Slots of sequences more than one lap behind the latest published event already hold newer events.
+        long oldestInBuffer = publishedSequence.get() - buffer.length + 1;
+        for (long sequence = Math.max(releasedSequence + 1, oldestInBuffer); sequence <= consumedSequence; sequence++) {
+            buffer[(int) sequence & mask] = null;
+        }
+        releasedSequence = Math.max(releasedSequence, consumedSequence);
+    }
+
+    /**
+     * method: slowestConsumedSequence
+     * parameters: none
+     * return: long - the lowest cursor of the open subscriptions, or Long.MAX_VALUE if there are none.
+     * A subscription that is still starting has a cursor of Long.MIN_VALUE, which holds the writer until the cursor is set.
+     * purpose: Finds how far the writer may safely write without overwriting an unconsumed event.
+     */
+    private long slowestConsumedSequence() {
+        long slowest = Long.MAX_VALUE;
+        for (Subscription subscription : subscriptions) {
+            slowest = Math.min(slowest, subscription.consumedSequence.get());
+        }
+        return slowest;
+    }
+
+    /**
+     * A subscriber's position in the feed. Each subscription must only be read from one thread.
+     */
+    public class Subscription implements AutoCloseable {
+        /**
+         * Class attributes:
+         *     consumedSequence: AtomicLong - the sequence of the last event this subscriber consumed, read by the writer for backpressure.
+         *         Long.MIN_VALUE until subscribe sets it to the latest published sequence.
+         */
+        private final AtomicLong consumedSequence = new AtomicLong(Long.MIN_VALUE);
+
+        /**
+         * method: Subscription constructor
+         * parameters: none
+         * return: A new Subscription object.
+         * purpose: Initializes a subscription whose cursor holds the writer back until subscribe sets it.
+         */
+        private Subscription() {
+        }
+
+        /**
+         * method: poll
+         * parameters: List<PatronChangeEvent> batch - the list the events are added to
+         *             int maxBatchSize - the maximum number of events to add
+         * return: int - the number of events added, 0 if no new events were published.
+         * purpose: Consumes up to maxBatchSize events in publish order without waiting.
+         * The cursor is moved once per batch, which frees the consumed slots for the writer.
+         */
+        public int poll(List<PatronChangeEvent> batch, int maxBatchSize) {
+            long consumed = consumedSequence.get();
+            long available = Math.min(publishedSequence.get() - consumed, maxBatchSize);
+            for (long sequence = consumed + 1; sequence <= consumed + available; sequence++) {
+                batch.add(buffer[(int) sequence & mask]);
+            }
+            if(available > 0)
+                consumedSequence.setRelease(consumed + available);
+            return (int) Math.max(available, 0);
+        }
+
+        /**
+         * method: take
+         * parameters: List<PatronChangeEvent> batch - the list the events are added to
+         *             int maxBatchSize - the maximum number of events to add
+         *             long timeout - how long to wait for at least one event
+         *             TimeUnit unit - the unit of the timeout
+         * return: int - the number of events added, 0 if the timeout passed with no new events.
+         * throws: InterruptedException - if the thread is interrupted while waiting
+         * purpose: Consumes up to maxBatchSize events, waiting up to the timeout for the first one.
+         */
+        public int take(List<PatronChangeEvent> batch, int maxBatchSize, long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            int taken = poll(batch, maxBatchSize);
+            while(taken == 0 && System.nanoTime() < deadline) {
+                if(Thread.interrupted())
+                    throw new InterruptedException();
+                LockSupport.parkNanos(10_000);
+                taken = poll(batch, maxBatchSize);
+            }
+            return taken;
+        }
+
+        /**
+         * method: close
+         * parameters: none
+         * return: void
+         * purpose: Unsubscribes from the feed, so the writer no longer waits for this subscriber.
+         */
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+        }
+    }
+}
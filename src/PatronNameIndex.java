@@ -0,0 +1,237 @@
+import java.util.*;
+
+/**
+ * Steven Pride
+ * CEN 3024 - Software Development I
+ * 09/13/25
+ * LibraryApp
+ * Trigram index over patron names used for fuzzy name lookup (Business Logic Layer).
+ * Each name is lower-cased, padded with spaces, and split into overlapping 3 character sequences (trigrams).
+ * The index maps every trigram to the patrons whose name contains it, so a search only counts the patrons
+ * that share trigrams with the search text instead of comparing against every name in the collection.
+ * Matches are ranked by trigram similarity (Dice coefficient): 2 * shared trigrams / (search trigrams + name trigrams).
+ * Patrons are stored by an internal slot number so the postings and the shared trigram counts can be plain int arrays.
+ * Removing a patron only marks its slot as dead, because finding the slot in the postings of a common trigram would mean scanning
+ * a large part of the collection. Dead slots are skipped by search and dropped when the index is compacted, once they outnumber the live ones.
+ * The index is kept up to date by LibraryManagementSystem on every create, update, and delete. Like the patron collection, it is not thread safe.
+ */
+public class PatronNameIndex {
+    /**
+     * Class attributes:
+     *     MIN_SIMILARITY: double - the lowest similarity (0.0 - 1.0) a name can have and still be returned as a match
+     *     postings: HashMap<String, SlotList> - trigram to the slots of the patrons whose name contains it
+     *     slotsById: HashMap<String, Integer> - patron ID to the slot holding that patron
+     *     ids: String[] - slot to patron ID, null for a dead slot
+     *     names: String[] - slot to the normalized name that was indexed, used to rebuild the postings when compacting
+     *     trigramCounts: int[] - slot to the number of distinct trigrams in the indexed name
+     *     sharedCounts: int[] - working space for search, slot to the number of trigrams shared with the search text
+     *     slotCount: int - the number of slots handed out since the last compaction
+     *     deadSlotCount: int - the number of slots whose patron was removed, still listed in the postings
+     *     MIN_DEAD_SLOTS_TO_COMPACT: int - dead slots are left alone below this count, so small indexes are not compacted over and over
+     */
+    private static final double MIN_SIMILARITY = 0.3;
+    private static final int MIN_DEAD_SLOTS_TO_COMPACT = 1024;
+    private final Map<String, SlotList> postings = new HashMap<>();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private String[] ids = new String[16];
+    private String[] names = new String[16];
+    private int[] trigramCounts = new int[16];
+    private int[] sharedCounts = new int[16];
+    private int slotCount = 0;
+    private int deadSlotCount = 0;
+
+    /**
+     * method: add
+     * parameters: String id - the patron ID number
+     *             String name - the patron name
+     * return: void
+     * purpose: Indexes the name for the given patron ID, replacing any name previously indexed for that ID.
+     */
+    public void add(String id, String name) {
+        remove(id);
+        insert(id, normalize(name));
+    }
+
+    /**
+     * method: insert
+     * parameters: String id - the patron ID number, not currently indexed
+     *             String normalizedName - the patron name returned by normalize
+     * return: void
+     * purpose: Stores the patron in a new slot and adds the slot to the postings of each trigram in the name.
+     */
+    private void insert(String id, String normalizedName) {
+        int slot = nextSlot();
+        Set<String> nameTrigrams = trigrams(normalizedName);
+
+        slotsById.put(id, slot);
+        ids[slot] = id;
+        names[slot] = normalizedName;
+        trigramCounts[slot] = nameTrigrams.size();
+        for (String trigram : nameTrigrams) {
+            postings.computeIfAbsent(trigram, key -> new SlotList()).add(slot);
+        }
+    }
+
+    /**
+     * method: remove
+     * parameters: String id - the patron ID number
+     * return: void
+     * purpose: Removes the patron ID from the index by marking its slot dead. Does nothing if the ID is not indexed.
+     */
+    public void remove(String id) {
+        Integer slot = slotsById.remove(id);
+        if(slot == null)
+            return;
+
+        ids[slot] = null;
+        names[slot] = null;
+        deadSlotCount++;
+        if(deadSlotCount >= MIN_DEAD_SLOTS_TO_COMPACT && deadSlotCount * 2 > slotCount)
+            compact();
+    }
+
+    /**
+     * method: search
+     * parameters: String name - the (possibly misspelled) name to search for
+     *             int limit - the maximum number of matches to return
+     * return: List<String> - the IDs of the closest matching patrons, best match first.
+     * purpose: Finds the indexed names most similar to the search text.
+     * Walks the postings of each search trigram once, counting how many trigrams every patron shares with the search text,
+     * then scores only the patrons that were counted and keeps the best matches.
+     */
+    public List<String> search(String name, int limit) {
+        Set<String> searchTrigrams = trigrams(normalize(name));
+        if(searchTrigrams.isEmpty() || limit <= 0)
+            return new ArrayList<>();
+
+        //Count shared trigrams, remembering each slot the first time it is seen so only those counters need scoring and resetting.
+        SlotList touchedSlots = new SlotList();
+        for (String trigram : searchTrigrams) {
+            SlotList slots = postings.get(trigram);
+            if(slots == null)
+                continue;
+            for (int i = 0; i < slots.size; i++) {
+                int slot = slots.slots[i];
+                if(sharedCounts[slot]++ == 0)
+                    touchedSlots.add(slot);
+            }
+        }
+
+        //Keep the best matches in a min-heap so the weakest is dropped first once the limit is reached.
+        PriorityQueue<Map.Entry<String, Double>> bestMatches = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (int i = 0; i < touchedSlots.size; i++) {
+            int slot = touchedSlots.slots[i];
+            double similarity = 2.0 * sharedCounts[slot] / (searchTrigrams.size() + trigramCounts[slot]);
+            sharedCounts[slot] = 0;
+            if(ids[slot] == null || similarity < MIN_SIMILARITY)
+                continue;
+            if(bestMatches.size() == limit) {
+                if(similarity <= bestMatches.peek().getValue())
+                    continue;
+                bestMatches.poll();
+            }
+            bestMatches.offer(new AbstractMap.SimpleEntry<>(ids[slot], similarity));
+        }
+
+        LinkedList<String> matchIds = new LinkedList<>();
+        while(!bestMatches.isEmpty()) {
+            matchIds.addFirst(bestMatches.poll().getKey());
+        }
+        return matchIds;
+    }
+
+    /**
+     * method: compact
+     * parameters: none
+     * return: void
+     * purpose: Rebuilds the index from the live patrons only, dropping every dead slot from the postings.
+     * Runs once dead slots outnumber live ones, so its cost is spread over at least as many removals as there are live patrons.
+     */
+    private void compact() {
+        String[] liveIds = new String[slotsById.size()];
+        String[] liveNames = new String[slotsById.size()];
+        int liveCount = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if(ids[slot] != null) {
+                liveIds[liveCount] = ids[slot];
+                liveNames[liveCount] = names[slot];
+                liveCount++;
+            }
+        }
+
+        int length = Math.max(16, Integer.highestOneBit(Math.max(1, liveCount)) * 2);
+        postings.clear();
+        slotsById.clear();
+        ids = new String[length];
+        names = new String[length];
+        trigramCounts = new int[length];
+        sharedCounts = new int[length];
+        slotCount = 0;
+        deadSlotCount = 0;
+        for (int i = 0; i < liveCount; i++) {
+            insert(liveIds[i], liveNames[i]);
+        }
+    }
+
+    /**
+     * method: nextSlot
+     * parameters: none
+     * return: int - a new slot number.
+     * purpose: Hands out the next unused slot, doubling the slot arrays when they are full.
+     */
+    private int nextSlot() {
+        if(slotCount == ids.length) {
+            int newLength = ids.length * 2;
+            ids = Arrays.copyOf(ids, newLength);
+            names = Arrays.copyOf(names, newLength);
+            trigramCounts = Arrays.copyOf(trigramCounts, newLength);
+            sharedCounts = Arrays.copyOf(sharedCounts, newLength);
+        }
+        return slotCount++;
+    }
+
+    /**
+     * method: normalize
+     * parameters: String name - the name to normalize
+     * return: String - the name lower-cased with runs of whitespace collapsed, padded with two leading spaces and one trailing space.
+     * purpose: Makes matching case and spacing insensitive. The padding gives the start and end of the name their own trigrams.
+     */
+    private static String normalize(String name) {
+        if(name == null || name.trim().isEmpty())
+            return "";
+        return "  " + name.trim().toLowerCase().replaceAll("\\s+", " ") + " ";
+    }
+
+    /**
+     * method: trigrams
+     * parameters: String normalizedName - a name returned by normalize
+     * return: Set<String> - the distinct 3 character sequences in the name.
+     * purpose: Splits a normalized name into the trigrams used as index keys.
+     */
+    private static Set<String> trigrams(String normalizedName) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= normalizedName.length(); i++) {
+            trigrams.add(normalizedName.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Growable list of slot numbers, used for the postings of one trigram and for the slots touched by a search.
+     */
+    private static class SlotList {
+        /**
+         * Class attributes:
+         *     slots: int[] - the slot numbers, valid up to size
+         *     size: int - the number of slot numbers in the list
+         */
+        private int[] slots = new int[4];
+        private int size = 0;
+
+        private void add(int slot) {
+            if(size == slots.length)
+                slots = Arrays.copyOf(slots, size * 2);
+            slots[size++] = slot;
+        }
+    }
+}
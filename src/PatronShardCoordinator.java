@@ -0,0 +1,622 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steven Pride
+ * CEN 3024 - Software Development I
+ * 09/13/25
+ * LibraryApp
+ * Coordinator for a partitioned deployment, where the patron collection is split across several PatronShardWorker processes (Business Logic Layer).
+ * Patron IDs are dense 7-digit numbers, so each patron belongs to shard (ID modulo shard count), see LibraryManagementSystem.shardOf.
+ * Create, retrieve, update, and delete calls are routed to the one shard that holds the patron.
+ * Listing, counting, and totaling fines are sent to every shard at once and the results combined.
+ * Imports read the file once, here: each line is split and its ID checked, then the line is sent to the shard that owns it.
+ * Lines are sent in chunks, and the next chunk is read while the shards import the current one.
+ * The workers are started on this machine by start and stopped by close. Each worker is given a random token on its standard input
+ * and only serves a connection that presents that token, so other local processes cannot use the loopback port to reach the patrons.
+ * Methods mirror LibraryManagementSystem and throw the same exceptions, so callers can move between the two.
+ */
+public class PatronShardCoordinator implements AutoCloseable {
+    /**
+     * Class attributes:
+     *     WORKER_STOP_SECONDS: int - how long close waits for a worker to exit before killing it
+     *     TOKEN_BYTES: int - the number of random bytes in each worker's token
+     *     IMPORT_CHUNK_LINES: int - the most lines read from an import file before they are sent to the shards
+     *     IMPORT_CHUNK_BYTES: int - the most encoded bytes of routed lines read before they are sent
+     *     IMPORT_LINE_MAX_BYTES: int - the largest encoded line that can be routed. A full chunk plus one such line still fits in
+     *         PatronShardWorker.REQUEST_MAX_BYTES, larger lines are rejected as LINE_TOO_LONG.
+     *     shards: Shard[] - the connection to each worker, indexed by shard number
+     *     shardExecutors: ExecutorService[] - one single thread executor per shard, used to send a request to every shard at the same time.
+     *         Each shard has its own thread so its requests are sent in the order they were submitted, which keeps import chunks in file order.
+     */
+    private static final int WORKER_STOP_SECONDS = 5;
+    private static final int TOKEN_BYTES = 32;
+    private static final int IMPORT_CHUNK_LINES = 16_384;
+    private static final int IMPORT_CHUNK_BYTES = 4 * 1024 * 1024;
+    private static final int IMPORT_LINE_MAX_BYTES = PatronShardWorker.REQUEST_MAX_BYTES - IMPORT_CHUNK_BYTES - 1024;
+    private final Shard[] shards;
+    private final ExecutorService[] shardExecutors;
+
+    /**
+     * method: PatronShardCoordinator constructor
+     * parameters: Shard[] shards - the connected workers
+     * return: A new PatronShardCoordinator object.
+     * purpose: Initializes a coordinator for workers that are already running, use start to launch them.
+     */
+    private PatronShardCoordinator(Shard[] shards) {
+        this.shards = shards;
+        this.shardExecutors = new ExecutorService[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            String threadName = "shard-" + i;
+            shardExecutors[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * method: start
+     * parameters: int shardCount - the number of worker processes to start
+     *             String... jvmOptions - options for each worker JVM, for example "-Xmx2g"
+     * return: PatronShardCoordinator - a coordinator connected to the new, empty workers.
+     * throws: IllegalArgumentException - if the shard count is less than 1
+     *         IOException - if a worker cannot be started or connected to, any workers already started are stopped
+     * purpose: Launches the workers with the same Java runtime and class path as this process, and connects to each one.
+     */
+    public static PatronShardCoordinator start(int shardCount, String... jvmOptions) throws IOException {
+        if(shardCount < 1)
+            throw new IllegalArgumentException("Shard count must be at least 1.");
+
+        Shard[] shards = new Shard[shardCount];
+        try {
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = Shard.launch(i, jvmOptions);
+            }
+        }
+        catch(IOException e) {
+            for (Shard shard : shards) {
+                if(shard != null)
+                    shard.stop();
+            }
+            throw e;
+        }
+        return new PatronShardCoordinator(shards);
+    }
+
+    /**
+     * method: getShardCount
+     * parameters: none
+     * return: int - the number of shards.
+     * purpose: Returns the number of worker processes the collection is split across.
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * method: importPatrons
+     * parameters: String filePath - path to the patron data file
+     * return: String - count of successes and the reason each failed line was rejected.
+     * throws: IOException - if the file cannot be read for any reason.
+     * purpose: Imports the file across all shards and returns the combined report summary for display.
+     */
+    public String importPatrons(String filePath) throws IOException {
+        return importPatrons(filePath, new ImportReport()).toString();
+    }
+
+    /**
+     * method: importPatrons
+     * parameters: String filePath - path to the patron data file
+     *             ImportReport report - the report the combined results are recorded in
+     * return: ImportReport - the report that was passed in.
+     * throws: IOException - if the file cannot be read, or the report is streamed and cannot be written.
+     * purpose: Reads the file once and sends each valid line to the shard that owns its ID, one chunk at a time.
+     * Lines with the wrong column count or an invalid ID are rejected here, duplicate IDs and invalid fines by the shards.
+     * After each chunk, the rejections from here and from every shard are merged by line number into the report, so the report
+     * stays in file order and a streamed report is written as the import runs instead of held until the end.
+     */
+    public ImportReport importPatrons(String filePath, ImportReport report) throws IOException {
+        File patronFile = new File(filePath);
+        if(!patronFile.exists() || !patronFile.canRead())
+            throw new IOException("Error reading file. Check that the file exists and is readable.");
+
+        try (BufferedReader fileReader = new BufferedReader(new FileReader(patronFile))) {
+            ImportChunk previousChunk = null;
+            int lineNumber = 0;
+            while(previousChunk == null || !previousChunk.finished) {
+                ImportChunk chunk = readImportChunk(fileReader, lineNumber);
+                lineNumber = chunk.lastLineNumber;
+                chunk.responses = submitToAll(shard -> chunk.shardRequests[shard].size() > 1 ? chunk.shardRequests[shard].toArray(new String[0]) : null);
+
+                //The shards import this chunk while the previous one is merged and the next one is read. Each shard has one thread,
+                //so it receives this chunk only after the previous one, and the first line of a duplicate ID still wins.
+                if(previousChunk != null)
+                    mergeImportChunk(previousChunk, report);
+                previousChunk = chunk;
+            }
+            mergeImportChunk(previousChunk, report);
+        }
+
+        report.flush();
+        return report;
+    }
+
+    /**
+     * method: readImportChunk
+     * parameters: BufferedReader fileReader - the open import file
+     *             int lineNumber - the number of the last line already read
+     * return: ImportChunk - the next lines of the file, split into one IMPORT request per shard.
+     * purpose: Reads up to IMPORT_CHUNK_LINES lines or IMPORT_CHUNK_BYTES encoded bytes of routed lines, so no request to a shard exceeds
+     * PatronShardWorker.REQUEST_MAX_BYTES. Lines that belong to no shard, or are too large to route, are rejected in the chunk,
+     * and a read error is recorded as the chunk's last rejection and ends the import, as LibraryManagementSystem.importPatrons does.
+     */
+    private ImportChunk readImportChunk(BufferedReader fileReader, int lineNumber) throws IOException {
+        ImportChunk chunk = new ImportChunk(shards.length);
+        int chunkLines = 0;
+        long chunkBytes = 0;
+        while(chunkLines < IMPORT_CHUNK_LINES && chunkBytes < IMPORT_CHUNK_BYTES) {
+            String importLine;
+            try {
+                importLine = fileReader.readLine();
+            }
+            catch(IOException e) {
+                chunk.coordinatorRejections.recordRejected(lineNumber + 1, ImportReport.RejectionReason.READ_ERROR);
+                importLine = null;
+            }
+            if(importLine == null) {
+                chunk.finished = true;
+                break;
+            }
+            lineNumber++;
+            chunkLines++;
+
+            String[] columns = LibraryManagementSystem.splitImportLine(importLine);
+            ImportReport.RejectionReason rejection = columns == null ? ImportReport.RejectionReason.WRONG_COLUMN_COUNT : Patron.checkId(columns[0]);
+            if(rejection != null) {
+                chunk.coordinatorRejections.recordRejected(lineNumber, rejection);
+                continue;
+            }
+
+            String lineNumberText = String.valueOf(lineNumber);
+            long lineBytes = PatronShardWorker.encodedLength(lineNumberText);
+            for (String column : columns) {
+                lineBytes += PatronShardWorker.encodedLength(column);
+            }
+            if(lineBytes > IMPORT_LINE_MAX_BYTES) {
+                chunk.coordinatorRejections.recordRejected(lineNumber, ImportReport.RejectionReason.LINE_TOO_LONG);
+                continue;
+            }
+            chunkBytes += lineBytes;
+
+            List<String> shardRequest = chunk.shardRequests[LibraryManagementSystem.shardOf(columns[0], shards.length)];
+            shardRequest.add(lineNumberText);
+            shardRequest.addAll(Arrays.asList(columns));
+        }
+        chunk.lastLineNumber = lineNumber;
+        return chunk;
+    }
+
+    /**
+     * method: mergeImportChunk
+     * parameters: ImportChunk chunk - a chunk whose requests were sent to the shards
+     *             ImportReport report - the report the chunk's results are recorded in
+     * return: void
+     * throws: IOException - if a shard connection failed, or the report is streamed and cannot be written.
+     * purpose: Waits for the shards to finish the chunk, then records their imported counts and merges the rejections
+     * found here and by each shard, which are each in line order, into the report in line order.
+     * Each shard response is "OK", the imported count, then line number and reason pairs.
+     */
+    private void mergeImportChunk(ImportChunk chunk, ImportReport report) throws IOException {
+        String[][] responses = awaitAll(chunk.responses);
+        int[] positions = new int[responses.length];
+        for (int i = 0; i < responses.length; i++) {
+            if(responses[i] != null)
+                report.recordImported(Integer.parseInt(responses[i][1]));
+            positions[i] = 2;
+        }
+
+        int coordinatorPosition = 0;
+        while(true) {
+            //-1 means the next rejection is one found here, otherwise it is from that shard.
+            int nextShard = -1;
+            int nextLineNumber = coordinatorPosition < chunk.coordinatorRejections.getRejectedCount()
+                    ? chunk.coordinatorRejections.getLineNumber(coordinatorPosition) : Integer.MAX_VALUE;
+            for (int i = 0; i < responses.length; i++) {
+                if(responses[i] != null && positions[i] < responses[i].length && Integer.parseInt(responses[i][positions[i]]) < nextLineNumber) {
+                    nextShard = i;
+                    nextLineNumber = Integer.parseInt(responses[i][positions[i]]);
+                }
+            }
+            if(nextLineNumber == Integer.MAX_VALUE)
+                break;
+
+            if(nextShard < 0) {
+                report.recordRejected(nextLineNumber, chunk.coordinatorRejections.getReason(coordinatorPosition));
+                coordinatorPosition++;
+            }
+            else {
+                report.recordRejected(nextLineNumber, ImportReport.RejectionReason.valueOf(responses[nextShard][positions[nextShard] + 1]));
+                positions[nextShard] += 2;
+            }
+        }
+    }
+
+    /**
+     * method: createPatron
+     * parameters: String id - the patron ID number
+     *             String name - the patron name
+     *             String address - the patron address
+     *             String fine - the patron overdue fine amount
+     * return: boolean - true if the patron was created successfully.
+     * throws: IllegalArgumentException - if the ID is invalid or already exists, or the fine is invalid
+     * purpose: Creates the patron on the shard that owns its ID.
+     */
+    public boolean createPatron(String id, String name, String address, String fine) throws Exception {
+        Shard shard = shardFor(id);
+        if(shard == null)
+            throw new IllegalArgumentException("Unable to create patron.\n" + Patron.checkId(id).getMessage());
+        return Boolean.parseBoolean(shard.call("CREATE", id, name, address, fine)[1]);
+    }
+
+    /**
+     * method: retrievePatron
+     * parameters: String id - the patron ID number
+     * return: Patron - a copy of the Patron object with the given ID
+     * throws: IllegalArgumentException - if the ID is invalid or does not exist
+     * purpose: Retrieves the patron from the shard that owns its ID. Changing the returned patron does not change the shard, use updatePatron.
+     */
+    public Patron retrievePatron(String id) throws Exception {
+        String[] response = existingShardFor(id).call("RETRIEVE", id);
+        return new Patron(response[1], response[2], response[3], Double.parseDouble(response[4]));
+    }
+
+    /**
+     * method: updatePatron
+     * parameters: String id - the patron ID number
+     *             String name - the patron name
+     *             String address - the patron address
+     *             String fine - the patron overdue fine amount
+     * return: boolean - true if the patron was updated successfully.
+     * throws: IllegalArgumentException - if the ID is invalid or does not exist, or the fine is invalid
+     * purpose: Updates the patron on the shard that owns its ID. Blank values are ignored for the update.
+     */
+    public boolean updatePatron(String id, String name, String address, String fine) throws Exception {
+        return Boolean.parseBoolean(existingShardFor(id).call("UPDATE", id, name, address, fine)[1]);
+    }
+
+    /**
+     * method: deletePatron
+     * parameters: String id - the patron ID number
+     * return: boolean - true if the patron was deleted successfully.
+     * throws: IllegalArgumentException - if the ID is invalid or does not exist
+     * purpose: Deletes the patron from the shard that owns its ID.
+     */
+    public boolean deletePatron(String id) throws Exception {
+        return Boolean.parseBoolean(existingShardFor(id).call("DELETE", id)[1]);
+    }
+
+    /**
+     * method: idExists
+     * parameters: String id - the patron ID number
+     * return: boolean - true if the patron with that id exists on its shard, false otherwise.
+     * throws: IllegalArgumentException - if the ID format is invalid
+     * purpose: Validates the ID format and checks whether the shard that owns the ID holds that patron.
+     */
+    public boolean idExists(String id) throws Exception {
+        Patron.validateId(id);
+        return Boolean.parseBoolean(shardFor(id).call("EXISTS", id)[1]);
+    }
+
+    /**
+     * method: listPatrons
+     * parameters: none
+     * return: String - a string representation of all patrons on all shards.
+     * purpose: Collects the patron list of every shard in parallel and joins them in shard order.
+     */
+    public String listPatrons() throws IOException {
+        StringBuilder statusMessage = new StringBuilder();
+        for (String[] response : fanOut(shard -> new String[] {"LIST"})) {
+            statusMessage.append(response[1]);
+        }
+        return statusMessage.length() == 0 ? "No patrons found." : statusMessage.toString();
+    }
+
+    /**
+     * method: getPatronCount
+     * parameters: none
+     * return: int - the number of patrons across all shards.
+     * purpose: Adds up the patron count of every shard.
+     */
+    public int getPatronCount() throws IOException {
+        int patronCount = 0;
+        for (String[] response : fanOut(shard -> new String[] {"SUMMARY"})) {
+            patronCount += Integer.parseInt(response[1]);
+        }
+        return patronCount;
+    }
+
+    /**
+     * method: getTotalFines
+     * parameters: none
+     * return: double - the sum of the overdue fines of every patron across all shards.
+     * purpose: Adds up the fine total of every shard.
+     */
+    public double getTotalFines() throws IOException {
+        double totalFines = 0.00;
+        for (String[] response : fanOut(shard -> new String[] {"SUMMARY"})) {
+            totalFines += Double.parseDouble(response[2]);
+        }
+        return totalFines;
+    }
+
+    /**
+     * method: isPatronCollectionEmpty
+     * parameters: none
+     * return: boolean - true if no shard holds any patrons, false otherwise
+     * purpose: Checks if the partitioned collection is empty.
+     */
+    public boolean isPatronCollectionEmpty() throws IOException {
+        return getPatronCount() == 0;
+    }
+
+    /**
+     * method: close
+     * parameters: none
+     * return: void
+     * purpose: Asks every worker to shut down, waits for each to exit, and kills any that do not exit in time. The patrons held by the workers are discarded.
+     */
+    @Override
+    public void close() {
+        for (ExecutorService shardExecutor : shardExecutors) {
+            shardExecutor.shutdownNow();
+        }
+        for (Shard shard : shards) {
+            shard.stop();
+        }
+    }
+
+    /**
+     * method: shardFor
+     * parameters: String id - the patron ID number
+     * return: Shard - the shard that owns the ID, or null if the ID is not valid and so belongs to no shard.
+     * purpose: Finds the shard that owns the ID. Callers report an invalid ID the way LibraryManagementSystem does for the same method.
+     */
+    private Shard shardFor(String id) {
+        if(Patron.checkId(id) != null)
+            return null;
+        return shards[LibraryManagementSystem.shardOf(id.trim(), shards.length)];
+    }
+
+    /**
+     * method: existingShardFor
+     * parameters: String id - the patron ID number
+     * return: Shard - the shard that owns the ID.
+     * throws: IllegalArgumentException - if the ID is not valid, with the same "No Patron found" message LibraryManagementSystem gives, since no patron can have it.
+     * purpose: Finds the shard for a patron that must already exist.
+     */
+    private Shard existingShardFor(String id) {
+        Shard shard = shardFor(id);
+        if(shard == null)
+            throw new IllegalArgumentException("No Patron found with id " + id.trim());
+        return shard;
+    }
+
+    /**
+     * Builds the request sent to one shard during a fan out.
+     */
+    private interface ShardRequest {
+        String[] forShard(int shardIndex);
+    }
+
+    /**
+     * method: fanOut
+     * parameters: ShardRequest request - builds the request for each shard
+     * return: String[][] - the response of each shard, indexed by shard number.
+     * throws: IllegalArgumentException - if any shard returned an error
+     *         IOException - if any shard connection failed
+     * purpose: Sends a request to every shard at the same time and waits for all of them to answer.
+     */
+    private String[][] fanOut(ShardRequest request) throws IOException {
+        return awaitAll(submitToAll(request));
+    }
+
+    /**
+     * method: submitToAll
+     * parameters: ShardRequest request - builds the request for each shard, or null for a shard with nothing to do
+     * return: List<Future<String[]>> - the pending response of each shard, indexed by shard number, null where no request was sent.
+     * purpose: Sends a request to every shard at the same time without waiting for the answers.
+     * Requests submitted to the same shard are sent in submit order, because each shard has a single thread.
+     */
+    private List<Future<String[]>> submitToAll(ShardRequest request) {
+        List<Future<String[]>> futures = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            Shard shard = shards[i];
+            String[] shardRequest = request.forShard(i);
+            futures.add(shardRequest == null ? null : shardExecutors[i].submit(() -> shard.call(shardRequest)));
+        }
+        return futures;
+    }
+
+    /**
+     * method: awaitAll
+     * parameters: List<Future<String[]>> futures - the pending responses from submitToAll
+     * return: String[][] - the response of each shard, indexed by shard number, null where no request was sent.
+     * throws: IllegalArgumentException - if any shard returned an error
+     *         IOException - if any shard connection failed
+     * purpose: Waits for every shard to answer.
+     */
+    private String[][] awaitAll(List<Future<String[]>> futures) throws IOException {
+        try {
+            String[][] responses = new String[futures.size()][];
+            for (int i = 0; i < futures.size(); i++) {
+                if(futures.get(i) != null)
+                    responses[i] = futures.get(i).get();
+            }
+            return responses;
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the shards.");
+        }
+        catch(ExecutionException e) {
+            if(e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            if(e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IOException("Shard request failed: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * One chunk of an import file, read here and waiting to be imported by the shards.
+     */
+    private static class ImportChunk {
+        /**
+         * Class attributes:
+         *     shardRequests: List<String>[] - the IMPORT request for each shard: "IMPORT", then line number, ID, name, address, and fine per line
+         *     coordinatorRejections: ImportReport - the lines of this chunk rejected before routing, in line order
+         *     lastLineNumber: int - the number of the last line in this chunk
+         *     finished: boolean - true if the end of the file, or a read error, was reached in this chunk
+         *     responses: List<Future<String[]>> - the pending response of each shard
+         */
+        private final List<String>[] shardRequests;
+        private final ImportReport coordinatorRejections = new ImportReport();
+        private int lastLineNumber;
+        private boolean finished;
+        private List<Future<String[]>> responses;
+
+        @SuppressWarnings("unchecked")
+        private ImportChunk(int shardCount) {
+            shardRequests = (List<String>[]) new List<?>[shardCount];
+            for (int i = 0; i < shardCount; i++) {
+                shardRequests[i] = new ArrayList<>();
+                shardRequests[i].add("IMPORT");
+            }
+        }
+    }
+
+    /**
+     * One worker process and the connection to it.
+     */
+    private static class Shard {
+        /**
+         * Class attributes:
+         *     process: Process - the worker JVM
+         *     socket: Socket - the connection to the worker
+         *     requestWriter: DataOutputStream - requests to the worker
+         *     responseReader: DataInputStream - responses from the worker
+         */
+        private final Process process;
+        private final Socket socket;
+        private final DataOutputStream requestWriter;
+        private final DataInputStream responseReader;
+
+        private Shard(Process process, Socket socket) throws IOException {
+            this.process = process;
+            this.socket = socket;
+            this.requestWriter = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.responseReader = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        }
+
+        /**
+         * method: launch
+         * parameters: int shardIndex - the shard number for the new worker
+         *             String[] jvmOptions - options for the worker JVM
+         * return: Shard - the started and connected worker.
+         * throws: IOException - if the worker does not start or cannot be connected to.
+         * purpose: Starts a PatronShardWorker process with a new random token on its standard input, waits for it to report its port,
+         * connects to it, and presents the token.
+         */
+        private static Shard launch(int shardIndex, String[] jvmOptions) throws IOException {
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(Arrays.asList(jvmOptions));
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add("PatronShardWorker");
+
+            byte[] tokenBytes = new byte[TOKEN_BYTES];
+            new SecureRandom().nextBytes(tokenBytes);
+            StringBuilder token = new StringBuilder();
+            for (byte tokenByte : tokenBytes) {
+                token.append(String.format("%02x", tokenByte));
+            }
+
+            Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            try {
+                try (Writer tokenWriter = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8)) {
+                    tokenWriter.write(token + "\n");
+                }
+
+                String readyLine = new BufferedReader(new InputStreamReader(process.getInputStream())).readLine();
+                if(readyLine == null || !readyLine.startsWith("READY "))
+                    throw new IOException("Shard worker " + shardIndex + " failed to start.");
+
+                Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(readyLine.substring(6).trim()));
+                socket.setTcpNoDelay(true);
+                Shard shard = new Shard(process, socket);
+                shard.call("HELLO", token.toString());
+                return shard;
+            }
+            catch(IOException e) {
+                process.destroyForcibly();
+                throw e;
+            }
+        }
+
+        /**
+         * method: call
+         * parameters: String... request - the command followed by its arguments
+         * return: String[] - "OK" followed by the results of the command.
+         * throws: IllegalArgumentException - if the worker returned an error, with the worker's message
+         *         IOException - if the connection to the worker failed
+         * purpose: Sends one request and waits for the response. Requests to the same shard are sent one at a time.
+         */
+        private synchronized String[] call(String... request) throws IOException {
+            PatronShardWorker.writeMessage(requestWriter, request);
+            requestWriter.flush();
+            //Responses come from a worker this coordinator started and authenticated, so only the int range limits them.
+            String[] response = PatronShardWorker.readMessage(responseReader, Integer.MAX_VALUE, false);
+            if(response[0].equals("ERROR"))
+                throw new IllegalArgumentException(response[1]);
+            return response;
+        }
+
+        /**
+         * method: stop
+         * parameters: none
+         * return: void
+         * purpose: Asks the worker to shut down and waits for it to exit, killing it if it does not exit in time.
+         */
+        private void stop() {
+            try {
+                call("SHUTDOWN");
+            }
+            catch(Exception e) {
+                //The worker exits when the connection closes, so a failed shutdown request is not an error.
+            }
+            try {
+                socket.close();
+                if(!process.waitFor(WORKER_STOP_SECONDS, TimeUnit.SECONDS))
+                    process.destroyForcibly();
+            }
+            catch(Exception e) {
+                process.destroyForcibly();
+            }
+        }
+    }
+}
@@ -0,0 +1,293 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Steven Pride
+ * CEN 3024 - Software Development I
+ * 09/13/25
+ * LibraryApp
+ * Worker process holding one shard of the patron collection in a partitioned deployment (Business Logic Layer).
+ * Each worker is its own JVM with its own LibraryManagementSystem collection, started and driven by a PatronShardCoordinator.
+ * The worker first reads a secret token from its standard input, which the coordinator writes when it starts the worker.
+ * It then listens on a loopback port, prints "READY <port>" once it is listening, and serves requests from a single coordinator
+ * connection, so the collection is only ever used from one thread. The worker exits when that connection closes, so workers never
+ * outlive their coordinator.
+ * Any local process can connect to a loopback port, so the first message on a connection must be "HELLO" and the token.
+ * A connection that sends anything else, or nothing within AUTH_TIMEOUT_MILLIS, is closed and the worker keeps waiting for its coordinator.
+ * Requests and responses are messages of strings (see writeMessage). A request is the command followed by its arguments,
+ * a response is "OK" followed by the results, or "ERROR" followed by the error message.
+ * Commands: HELLO (first message only), CREATE, RETRIEVE, UPDATE, DELETE, EXISTS, LIST, SUMMARY, IMPORT, SHUTDOWN.
+ */
+public class PatronShardWorker {
+    /**
+     * Class attributes:
+     *     AUTH_TIMEOUT_MILLIS: int - how long a new connection has to send its HELLO message
+     *     AUTH_MESSAGE_MAX_BYTES: int - the largest HELLO message read from a connection that is not yet authenticated
+     *     REQUEST_MAX_BYTES: int - the largest request read from the authenticated coordinator
+     */
+    private static final int AUTH_TIMEOUT_MILLIS = 5_000;
+    static final int AUTH_MESSAGE_MAX_BYTES = 1024;
+    static final int REQUEST_MAX_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * method: main
+     * parameters: String[] args - optionally the port to listen on, a free port is chosen when not given
+     * return: void
+     * throws: IOException - if no token is given on standard input, or the port cannot be opened.
+     * purpose: Starts the worker and serves the coordinator connection until it closes or a SHUTDOWN request is received.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        String token = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)).readLine();
+        if(token == null || token.trim().isEmpty())
+            throw new IOException("Shard worker needs the coordinator's token on standard input.");
+
+        try (ServerSocket serverSocket = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+            System.out.println("READY " + serverSocket.getLocalPort());
+            System.out.flush();
+
+            while(true) {
+                try (Socket socket = serverSocket.accept()) {
+                    socket.setTcpNoDelay(true);
+                    if(authenticate(socket, token.trim())) {
+                        serve(socket);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * method: authenticate
+     * parameters: Socket socket - a new connection
+     *             String token - the token the coordinator gave this worker
+     * return: boolean - true if the connection sent HELLO with the right token, false if it is closed without being served.
+     * throws: IOException - if the reply to the coordinator cannot be written.
+     * purpose: Checks the first message of a connection, waiting at most AUTH_TIMEOUT_MILLIS and reading at most AUTH_MESSAGE_MAX_BYTES.
+     * The token is compared in constant time so its value cannot be guessed from how long the check takes.
+     */
+    private static boolean authenticate(Socket socket, String token) throws IOException {
+        String[] hello;
+        try {
+            socket.setSoTimeout(AUTH_TIMEOUT_MILLIS);
+            hello = readMessage(new DataInputStream(socket.getInputStream()), AUTH_MESSAGE_MAX_BYTES, false);
+            socket.setSoTimeout(0);
+        }
+        //A timeout, an early close, or an oversized or malformed message all just end this connection.
+        catch(IOException e) {
+            return false;
+        }
+
+        if(hello.length != 2 || !"HELLO".equals(hello[0]) || hello[1] == null
+                || !MessageDigest.isEqual(hello[1].getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8)))
+            return false;
+
+        DataOutputStream responseWriter = new DataOutputStream(socket.getOutputStream());
+        writeMessage(responseWriter, new String[] {"OK"});
+        responseWriter.flush();
+        return true;
+    }
+
+    /**
+     * method: serve
+     * parameters: Socket socket - a coordinator connection
+     * return: void
+     * purpose: Answers requests on the connection until it closes or a SHUTDOWN request is received.
+     */
+    private static void serve(Socket socket) throws IOException {
+        DataInputStream requestReader = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream responseWriter = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        while(true) {
+            String[] request;
+            try {
+                request = readMessage(requestReader, REQUEST_MAX_BYTES, true);
+            }
+            catch(EOFException e) {
+                return;
+            }
+
+            //An oversized or empty request is answered with an error, the worker and its patrons stay up.
+            boolean shutdown = request != null && request.length > 0 && "SHUTDOWN".equals(request[0]);
+            String[] response;
+            if(request == null)
+                response = new String[] {"ERROR", "Shard request is larger than " + REQUEST_MAX_BYTES + " bytes."};
+            else if(request.length == 0)
+                response = new String[] {"ERROR", "Shard request is empty."};
+            else {
+                try {
+                    response = shutdown ? new String[] {"OK"} : handle(request);
+                }
+                catch(Exception e) {
+                    response = new String[] {"ERROR", e.getMessage()};
+                }
+            }
+            writeMessage(responseWriter, response);
+            responseWriter.flush();
+
+            if(shutdown)
+                return;
+        }
+    }
+
+    /**
+     * method: handle
+     * parameters: String[] request - the command followed by its arguments
+     * return: String[] - "OK" followed by the results of the command.
+     * throws: IllegalArgumentException - if the command is unknown, or any exception thrown by LibraryManagementSystem
+     * purpose: Runs one request against this worker's LibraryManagementSystem collection.
+     */
+    private static String[] handle(String[] request) throws Exception {
+        switch(request[0]) {
+            case "CREATE":
+                return new String[] {"OK", String.valueOf(LibraryManagementSystem.createPatron(request[1], request[2], request[3], request[4]))};
+            case "RETRIEVE":
+                Patron patron = LibraryManagementSystem.retrievePatron(request[1]);
+                return new String[] {"OK", patron.getId(), patron.getName(), patron.getAddress(), Double.toString(patron.getFine())};
+            case "UPDATE":
+                return new String[] {"OK", String.valueOf(LibraryManagementSystem.updatePatron(request[1], request[2], request[3], request[4]))};
+            case "DELETE":
+                return new String[] {"OK", String.valueOf(LibraryManagementSystem.deletePatron(request[1]))};
+            case "EXISTS":
+                return new String[] {"OK", String.valueOf(LibraryManagementSystem.idExists(request[1]))};
+            case "LIST":
+                return new String[] {"OK", LibraryManagementSystem.isPatronCollectionEmpty() ? "" : LibraryManagementSystem.listPatrons()};
+            case "SUMMARY":
+                return new String[] {"OK", String.valueOf(LibraryManagementSystem.getPatronCount()), Double.toString(LibraryManagementSystem.getTotalFines())};
+            case "IMPORT":
+                return importBatch(request);
+            default:
+                throw new IllegalArgumentException("Unknown shard command " + request[0] + ".");
+        }
+    }
+
+    /**
+     * method: importBatch
+     * parameters: String[] request - "IMPORT", then the line number, ID, name, address, and fine of each line, in file order
+     * return: String[] - "OK", the imported count, then the line number and reason of each rejection in file order.
+     * purpose: Imports a batch of lines the coordinator has read, split, and routed to this shard, and reports the result for the coordinator to merge.
+     */
+    private static String[] importBatch(String[] request) {
+        List<String> response = new ArrayList<>();
+        response.add("OK");
+        response.add(null);
+
+        int importedCount = 0;
+        for (int i = 1; i + 4 < request.length; i += 5) {
+            ImportReport.RejectionReason rejection = LibraryManagementSystem.importPatron(request[i + 1], request[i + 2], request[i + 3], request[i + 4]);
+            if(rejection == null) {
+                importedCount++;
+                continue;
+            }
+            response.add(request[i]);
+            response.add(rejection.name());
+        }
+        response.set(1, String.valueOf(importedCount));
+        return response.toArray(new String[0]);
+    }
+
+    /**
+     * method: writeMessage
+     * parameters: DataOutputStream messageWriter - the connection to write to
+     *             String[] message - the strings to send, elements may be null
+     * return: void
+     * throws: IOException - if the connection fails.
+     * purpose: Writes the number of strings, then each string as its UTF-8 byte length and bytes (-1 for null).
+     * Unlike writeUTF this has no 64 KB limit, which a full patron list easily exceeds.
+     */
+    static void writeMessage(DataOutputStream messageWriter, String[] message) throws IOException {
+        messageWriter.writeInt(message.length);
+        for (String part : message) {
+            if(part == null) {
+                messageWriter.writeInt(-1);
+                continue;
+            }
+            byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+            messageWriter.writeInt(bytes.length);
+            messageWriter.write(bytes);
+        }
+    }
+
+    /**
+     * method: encodedLength
+     * parameters: String part - one string of a message, may be null
+     * return: long - the number of bytes writeMessage uses for the string, including its 4 byte length.
+     * purpose: Sizes a message before it is written without encoding it, so a sender can keep requests under the reader's limit.
+     */
+    static long encodedLength(String part) {
+        long length = 4;
+        if(part == null)
+            return length;
+        for (int i = 0; i < part.length(); i++) {
+            char character = part.charAt(i);
+            if(character < 0x80)
+                length += 1;
+            else if(character < 0x800)
+                length += 2;
+            else if(Character.isHighSurrogate(character) && i + 1 < part.length() && Character.isLowSurrogate(part.charAt(i + 1))) {
+                length += 4;
+                i++;
+            }
+            //An unpaired surrogate is encoded as '?'.
+            else if(Character.isSurrogate(character))
+                length += 1;
+            else
+                length += 3;
+        }
+        return length;
+    }
+
+    /**
+     * method: readMessage
+     * parameters: DataInputStream messageReader - the connection to read from
+     *             int maxBytes - the largest message accepted, counting 4 bytes for each string's length and its UTF-8 bytes
+     *             boolean skipOversized - true to read past a message larger than maxBytes and return null, so the connection stays usable,
+     *                 false to throw as soon as a message is found to be too large
+     * return: String[] - the strings written by writeMessage, or null if skipOversized is true and the message was larger than maxBytes.
+     * throws: EOFException - if the connection closed before a message started
+     *         IOException - if the connection fails, the message is malformed, or it is larger than maxBytes and skipOversized is false.
+     * purpose: Reads one message written by writeMessage. The sizes are checked against maxBytes before anything is allocated,
+     * so a bad or hostile peer cannot make the reader allocate more than that.
+     */
+    static String[] readMessage(DataInputStream messageReader, int maxBytes, boolean skipOversized) throws IOException {
+        int count = messageReader.readInt();
+        if(count < 0)
+            throw new IOException("Shard message has an invalid string count " + count + ".");
+        boolean oversized = count > maxBytes / 4;
+        if(oversized && !skipOversized)
+            throw new IOException("Shard message is larger than " + maxBytes + " bytes.");
+
+        long remainingBytes = oversized ? 0 : maxBytes - (long) count * 4;
+        String[] message = oversized ? null : new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = messageReader.readInt();
+            if(length < -1)
+                throw new IOException("Shard message has an invalid string length " + length + ".");
+            if(!oversized && length > remainingBytes) {
+                if(!skipOversized)
+                    throw new IOException("Shard message is larger than " + maxBytes + " bytes.");
+                oversized = true;
+                message = null;
+            }
+            //Once a message is too large, the rest of it is read and discarded so the next message starts in the right place.
+            if(oversized) {
+                messageReader.skipNBytes(Math.max(length, 0));
+                continue;
+            }
+            if(length < 0)
+                continue;
+            remainingBytes -= length;
+            byte[] bytes = new byte[length];
+            messageReader.readFully(bytes);
+            message[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return message;
+    }
+}